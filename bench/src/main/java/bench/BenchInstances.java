@@ -0,0 +1,79 @@
+package bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+import problems.scqbf.InstanceGenerator;
+
+/**
+ * Resolve os nomes usados nos @Param dos benchmarks:
+ * <ul>
+ *   <li>nome de arquivo (ex.: {@code inst_100_aleatorio.dat}, {@code qbf100}),
+ *       procurado em {@code <bench.instances>/scqbf} ou {@code <bench.instances>/qbf}
+ *       (padrão de bench.instances: {@code instances}, depois {@code ../instances});</li>
+ *   <li>{@code gen:N} — instância sintética de tamanho N, gerada uma vez por JVM
+ *       num diretório temporário (semente fixa, então as medidas são comparáveis
+ *       entre execuções). SCQBF usa o {@link InstanceGenerator} (família aleatorio).</li>
+ * </ul>
+ */
+final class BenchInstances {
+
+    private static final long GEN_SEED = 824L;
+
+    private BenchInstances() {}
+
+    static String scqbf(String name) throws IOException {
+        if (name.startsWith("gen:")) return generated("scqbf", Integer.parseInt(name.substring(4)));
+        return shipped("scqbf", name);
+    }
+
+    static String qbf(String name) throws IOException {
+        if (name.startsWith("gen:")) return generated("qbf", Integer.parseInt(name.substring(4)));
+        return shipped("qbf", name);
+    }
+
+    private static String shipped(String kind, String name) throws IOException {
+        String root = System.getProperty("bench.instances");
+        Path[] dirs = (root != null)
+                ? new Path[]{Paths.get(root, kind)}
+                : new Path[]{Paths.get("instances", kind), Paths.get("..", "instances", kind)};
+        for (Path d : dirs) {
+            Path p = d.resolve(name);
+            if (Files.isRegularFile(p)) return p.toString();
+        }
+        throw new IOException("Instância " + name + " não encontrada (use -Dbench.instances=<dir>)");
+    }
+
+    private static synchronized String generated(String kind, int n) throws IOException {
+        Path p = Paths.get(System.getProperty("java.io.tmpdir"), "grasp-bench", kind + "_gen_" + n + ".dat");
+        if (Files.isRegularFile(p)) return p.toString();
+        Files.createDirectories(p.getParent());
+        Path tmp = Files.createTempFile(p.getParent(), kind, ".tmp");
+        if (kind.equals("scqbf")) {
+            new InstanceGenerator(n, InstanceGenerator.Family.ALEATORIO, null, 0.95, -10, 10, GEN_SEED).write(tmp);
+        } else {
+            SplittableRandom rnd = new SplittableRandom(GEN_SEED ^ n);
+            try (BufferedWriter out = Files.newBufferedWriter(tmp)) {
+                out.write(Integer.toString(n));
+                out.newLine();
+                writeUpperTriangle(out, n, rnd);
+            }
+        }
+        Files.move(tmp, p, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+        return p.toString();
+    }
+
+    /** Coeficientes inteiros em [-10, 10], triangular superior. */
+    private static void writeUpperTriangle(BufferedWriter out, int n, SplittableRandom rnd) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            sb.setLength(0);
+            for (int j = i; j < n; j++) sb.append(j == i ? "" : " ").append(rnd.nextInt(21) - 10);
+            out.write(sb.toString());
+            out.newLine();
+        }
+    }
+}
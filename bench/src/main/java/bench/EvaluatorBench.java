@@ -0,0 +1,123 @@
+package bench;
+
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import metaheuristics.grasp.AbstractGRASP;
+import org.openjdk.jmh.annotations.*;
+import problems.qbf.QBF;
+import problems.scqbf.SCQBF;
+import problems.scqbf.SCQBF_Inverse;
+import problems.scqbf.solvers.GRASP_SCQBF;
+import solutions.IntSolution;
+
+/**
+ * Custo de uma consulta dos avaliadores: deltas de inserção/remoção/troca do
+ * SCQBF sobre uma solução vinculada (construída uma vez no setup) e a
+ * avaliação completa da QBF. Cada chamada percorre um vetor fixo de
+ * candidatos, para não medir sempre o mesmo elemento.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class EvaluatorBench {
+
+    @State(Scope.Thread)
+    public static class ScqbfSession {
+        @Param({
+            "inst_25_aleatorio.dat", "inst_25_balanceado.dat", "inst_25_concentrado.dat",
+            "inst_50_aleatorio.dat", "inst_50_balanceado.dat", "inst_50_concentrado.dat",
+            "inst_100_aleatorio.dat", "inst_100_balanceado.dat", "inst_100_concentrado.dat",
+            "inst_200_aleatorio.dat", "inst_200_balanceado.dat", "inst_200_concentrado.dat",
+            "inst_400_aleatorio.dat", "inst_400_balanceado.dat", "inst_400_concentrado.dat",
+            "gen:1000"
+        })
+        public String scqbf;
+
+        SCQBF eval;
+        IntSolution sol;
+        int[] ins, outs;   // candidatos fora / dentro da solução, embaralhados
+        int pos;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            AbstractGRASP.verbose = false;
+            eval = new SCQBF_Inverse(BenchInstances.scqbf(scqbf));
+            GRASP_SCQBF grasp = new GRASP_SCQBF(0.2, 1, new SCQBF_Inverse(eval),
+                    GRASP_SCQBF.ConstructionMode.STANDARD, GRASP_SCQBF.LocalSearchType.FIRST_IMPROVING,
+                    64, null, 20);
+            grasp.setSeed(1L);
+            IntSolution built = (IntSolution) grasp.constructiveHeuristic();
+
+            sol = new IntSolution(eval.n);
+            sol.copyFrom(built);
+            eval.bind(sol);
+
+            int inside = sol.size();
+            outs = new int[Math.max(1, inside)];
+            ins = new int[Math.max(1, eval.n - inside)];
+            sol.copyElements(outs);
+            for (int i = 0, c = 0; i < eval.n; i++) if (!sol.containsInt(i)) ins[c++] = i;
+            SplittableRandom rnd = new SplittableRandom(2L);
+            shuffle(ins, rnd);
+            shuffle(outs, rnd);
+        }
+
+        private static void shuffle(int[] a, SplittableRandom rnd) {
+            for (int i = a.length - 1; i > 0; i--) {
+                int j = rnd.nextInt(i + 1);
+                int t = a[i]; a[i] = a[j]; a[j] = t;
+            }
+        }
+
+        int next() {
+            return pos++ & 0x7fffffff;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class QbfVariables {
+        @Param({"qbf020", "qbf040", "qbf060", "qbf080", "qbf100", "qbf200", "qbf400", "gen:1000"})
+        public String qbf;
+
+        QBF eval;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            eval = new QBF(BenchInstances.qbf(qbf));
+            // metade das variáveis em 1, sorteadas com semente fixa
+            IntSolution s = new IntSolution(eval.size);
+            SplittableRandom rnd = new SplittableRandom(3L);
+            for (int i = 0; i < eval.size; i++) if (rnd.nextBoolean()) s.addInt(i);
+            eval.setVariables(s);
+        }
+    }
+
+    @Benchmark
+    public double scqbfInsertionCost(ScqbfSession s) {
+        int i = s.ins[s.next() % s.ins.length];
+        return s.eval.evaluateInsertionCost(i, s.sol);
+    }
+
+    @Benchmark
+    public double scqbfRemovalCost(ScqbfSession s) {
+        int i = s.outs[s.next() % s.outs.length];
+        return s.eval.evaluateRemovalCost(i, s.sol);
+    }
+
+    @Benchmark
+    public double scqbfExchangeCost(ScqbfSession s) {
+        int k = s.next();
+        int in = s.ins[k % s.ins.length];
+        int out = s.outs[(k / s.ins.length) % s.outs.length];
+        return s.eval.evaluateExchangeCost(in, out, s.sol);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public double qbfEvaluate(QbfVariables s) {
+        return s.eval.evaluateQBF();
+    }
+}
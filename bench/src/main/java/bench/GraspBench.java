@@ -0,0 +1,123 @@
+package bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import metaheuristics.grasp.AbstractGRASP;
+import org.openjdk.jmh.annotations.*;
+import problems.qbf.solvers.GRASP_QBF;
+import problems.scqbf.SCQBFInstance;
+import problems.scqbf.solvers.GRASP_SCQBF;
+import solutions.Solution;
+
+/**
+ * Uma construção completa ({@code constructiveHeuristic()}) e uma busca local
+ * completa ({@code localSearch()}) dos solvers. A busca local parte de uma
+ * construção nova a cada chamada (feita no setup por invocação, fora da
+ * medida); a semente avança a cada invocação, então a média cobre vários
+ * pontos de partida, sempre os mesmos entre execuções.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class GraspBench {
+
+    @State(Scope.Thread)
+    public static class ScqbfSolver {
+        @Param({
+            "inst_25_aleatorio.dat", "inst_25_balanceado.dat", "inst_25_concentrado.dat",
+            "inst_50_aleatorio.dat", "inst_50_balanceado.dat", "inst_50_concentrado.dat",
+            "inst_100_aleatorio.dat", "inst_100_balanceado.dat", "inst_100_concentrado.dat",
+            "inst_200_aleatorio.dat", "inst_200_balanceado.dat", "inst_200_concentrado.dat",
+            "inst_400_aleatorio.dat", "inst_400_balanceado.dat", "inst_400_concentrado.dat",
+            "gen:1000"
+        })
+        public String scqbf;
+
+        GRASP_SCQBF grasp;
+        long seed;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            AbstractGRASP.verbose = false;
+            SCQBFInstance data = SCQBFInstance.load(BenchInstances.scqbf(scqbf));
+            grasp = new GRASP_SCQBF(0.2, 1, data, GRASP_SCQBF.ConstructionMode.STANDARD, lsType(), 64, null, 20);
+        }
+
+        /** A construção não depende da busca local; só o estado da busca local varia isto. */
+        GRASP_SCQBF.LocalSearchType lsType() {
+            return GRASP_SCQBF.LocalSearchType.FIRST_IMPROVING;
+        }
+
+        @Setup(Level.Invocation)
+        public void reseed() {
+            grasp.setSeed(seed++);
+        }
+    }
+
+    /** Solver já com uma solução construída, pronto para a busca local. */
+    @State(Scope.Thread)
+    public static class ScqbfConstructed extends ScqbfSolver {
+        @Param({"FIRST_IMPROVING", "BEST_IMPROVING"})
+        public GRASP_SCQBF.LocalSearchType ls;
+
+        @Override
+        GRASP_SCQBF.LocalSearchType lsType() {
+            return ls;
+        }
+
+        @Setup(Level.Invocation)
+        public void construct() {
+            grasp.constructiveHeuristic();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class QbfSolver {
+        @Param({"qbf020", "qbf040", "qbf060", "qbf080", "qbf100", "qbf200", "qbf400", "gen:1000"})
+        public String qbf;
+
+        GRASP_QBF grasp;
+        long seed;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            AbstractGRASP.verbose = false;
+            grasp = new GRASP_QBF(0.05, 1, BenchInstances.qbf(qbf));
+        }
+
+        @Setup(Level.Invocation)
+        public void reseed() {
+            grasp.setSeed(seed++);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class QbfConstructed extends QbfSolver {
+        @Setup(Level.Invocation)
+        public void construct() {
+            grasp.constructiveHeuristic();
+        }
+    }
+
+    @Benchmark
+    public Solution<Integer> scqbfConstruct(ScqbfSolver s) {
+        return s.grasp.constructiveHeuristic();
+    }
+
+    @Benchmark
+    public Solution<Integer> scqbfLocalSearch(ScqbfConstructed s) {
+        return s.grasp.localSearch();
+    }
+
+    @Benchmark
+    public Solution<Integer> qbfConstruct(QbfSolver s) {
+        return s.grasp.constructiveHeuristic();
+    }
+
+    @Benchmark
+    public Solution<Integer> qbfLocalSearch(QbfConstructed s) {
+        return s.grasp.localSearch();
+    }
+}
@@ -0,0 +1,62 @@
+package problems;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link RowKernel} on the Vector API: fused multiply-adds on the widest
+ * vector shape of the platform, with two independent accumulators to hide the
+ * FMA latency, and a scalar loop for the tail and for short rows. Needs
+ * --add-modules jdk.incubator.vector both to compile and to run;
+ * {@link RowKernel#get()} loads it by name and falls back to the scalar loop
+ * otherwise.
+ */
+final class VectorRowKernel extends RowKernel {
+
+	private static final VectorSpecies<Double> S = DoubleVector.SPECIES_PREFERRED;
+
+	/**
+	 * rows shorter than this many vectors go through the plain loop, where
+	 * the setup and the lane reduction would cost more than they save
+	 */
+	private static final int SHORT_ROW = 4;
+
+	VectorRowKernel() {
+		// fail here, inside the reflective lookup, if the module is missing
+		DoubleVector.zero(S);
+	}
+
+	@Override
+	public String name() {
+		return "vector(" + S.length() + "x double)";
+	}
+
+	@Override
+	public double dot(double[] a, int aOff, double[] x, int xOff, int len) {
+		final int step = S.length();
+		if (len < SHORT_ROW * step)
+			return scalarDot(a, aOff, x, xOff, len);
+		DoubleVector acc0 = DoubleVector.zero(S);
+		DoubleVector acc1 = DoubleVector.zero(S);
+		int k = 0;
+		for (int bound = len - 2 * step; k <= bound; k += 2 * step) {
+			acc0 = DoubleVector.fromArray(S, a, aOff + k).fma(DoubleVector.fromArray(S, x, xOff + k), acc0);
+			acc1 = DoubleVector.fromArray(S, a, aOff + k + step).fma(DoubleVector.fromArray(S, x, xOff + k + step), acc1);
+		}
+		for (int bound = len - step; k <= bound; k += step)
+			acc0 = DoubleVector.fromArray(S, a, aOff + k).fma(DoubleVector.fromArray(S, x, xOff + k), acc0);
+		double sum = acc0.add(acc1).reduceLanes(VectorOperators.ADD);
+		for (; k < len; k++)
+			sum += a[aOff + k] * x[xOff + k];
+		return sum;
+	}
+
+	private static double scalarDot(double[] a, int aOff, double[] x, int xOff, int len) {
+		double sum = 0.0;
+		for (int k = 0; k < len; k++)
+			sum += a[aOff + k] * x[xOff + k];
+		return sum;
+	}
+
+}
@@ -1,10 +1,21 @@
 import java.io.*;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.*;
+import problems.CoefficientMatrix;
 import metaheuristics.grasp.AbstractGRASP;
+import metaheuristics.grasp.AsyncLog;
+import metaheuristics.grasp.ConvergenceTrace;
+import metaheuristics.grasp.GRASPMetrics;
+import metaheuristics.grasp.ParallelGRASP;
+import metaheuristics.grasp.Seeds;
+import metaheuristics.grasp.SharedIncumbent;
+import problems.scqbf.SCQBFInstance;
+import problems.scqbf.SCQBFNeighbours;
 import problems.scqbf.solvers.GRASP_SCQBF;
 import problems.scqbf.solvers.GRASP_SCQBF.ConstructionMode;
 import problems.scqbf.solvers.GRASP_SCQBF.LocalSearchType;
+import problems.scqbf.solvers.GRASP_SCQBF.PathRelinking;
 import solutions.Solution;
 
 public class RunnerSCQBF {
@@ -17,13 +28,303 @@ public class RunnerSCQBF {
         final int sampleP;
         final double[] reactiveAlphas;
         final int reactiveBlock;
+        final PathRelinking pr;
+        final int poolSize;
+        final int lsCache;          // capacidade do cache de ótimos locais (0 = desligado)
+        final int granularK;        // vizinhos por critério da troca granular (0 = troca completa)
+        final int fullScanPeriod;   // troca completa a cada tantas buscas locais (troca granular)
         Config(String name, ConstructionMode mode, LocalSearchType ls, double alpha,
                int sampleP, double[] reactiveAlphas, int reactiveBlock) {
+            this(name, mode, ls, alpha, sampleP, reactiveAlphas, reactiveBlock, PathRelinking.NONE, 0, 0, 0, 0);
+        }
+        Config(String name, ConstructionMode mode, LocalSearchType ls, double alpha,
+               int sampleP, double[] reactiveAlphas, int reactiveBlock, PathRelinking pr, int poolSize, int lsCache,
+               int granularK, int fullScanPeriod) {
             this.name = name; this.mode = mode; this.ls = ls; this.alpha = alpha;
             this.sampleP = sampleP; this.reactiveAlphas = reactiveAlphas; this.reactiveBlock = reactiveBlock;
+            this.pr = pr; this.poolSize = poolSize; this.lsCache = lsCache;
+            this.granularK = granularK; this.fullScanPeriod = fullScanPeriod;
+        }
+        /** A mesma config com path relinking (nome ganha o sufixo _PR_<modo>). */
+        Config withPathRelinking(PathRelinking pr, int poolSize) {
+            return new Config(name + "_PR_" + pr, mode, ls, alpha, sampleP, reactiveAlphas, reactiveBlock,
+                              pr, poolSize, lsCache, granularK, fullScanPeriod);
+        }
+        /**
+         * A mesma config com outra busca local: o sufixo _FIRST/_BEST do nome
+         * vira o nome curto de ls (ex.: STD_a0.20_ADAPTIVE).
+         */
+        Config withLocalSearch(LocalSearchType ls) {
+            String shortName = ls.name().replace("_IMPROVING", "");
+            String base = name.replaceFirst("_(FIRST|BEST)$", "");
+            return new Config(base + "_" + shortName, mode, ls, alpha, sampleP, reactiveAlphas, reactiveBlock,
+                              pr, poolSize, lsCache, granularK, fullScanPeriod);
+        }
+        /** A mesma config com cache de ótimos locais (nome ganha o sufixo _LC). */
+        Config withLocalOptimumCache(int capacity) {
+            return new Config(name + "_LC", mode, ls, alpha, sampleP, reactiveAlphas, reactiveBlock,
+                              pr, poolSize, capacity, granularK, fullScanPeriod);
+        }
+        /** A mesma config com troca granular de k vizinhos (nome ganha o sufixo _G<k>). */
+        Config withGranularSwap(int k, int fullScanPeriod) {
+            return new Config(name + "_G" + k, mode, ls, alpha, sampleP, reactiveAlphas, reactiveBlock,
+                              pr, poolSize, lsCache, k, fullScanPeriod);
+        }
+    }
+
+    /** Uma célula do experimento: (instância, config, semente base). */
+    static class Job {
+        final Path inst;
+        final Config cfg;
+        final long seed;
+        Job(Path inst, Config cfg, long seed) {
+            this.inst = inst; this.cfg = cfg; this.seed = seed;
+        }
+        String key() { return cellKey(inst.getFileName().toString(), cfg.name, seed); }
+    }
+
+    static String cellKey(String instance, String config, long seed) {
+        return instance + "," + config + "," + seed;
+    }
+
+    /**
+     * Instâncias lidas, compartilhadas (somente leitura) pelos jobs que as usam.
+     * Cada instância é lida uma vez e liberada quando o último job dela termina;
+     * novas leituras esperam enquanto a memória estimada das carregadas passar
+     * do orçamento (sempre há pelo menos uma carregada, para não travar).
+     */
+    static class InstanceCache {
+        private static class Entry {
+            SCQBFInstance data;  // null enquanto outra thread lê o arquivo
+            long bytes;
+            int pendingJobs;
+        }
+        private final long budgetBytes;
+        private long usedBytes = 0;
+        private final Map<Path, Entry> loaded = new HashMap<>();
+        private final Map<Path, Integer> pending = new HashMap<>();
+
+        InstanceCache(List<Job> jobs, long budgetBytes) {
+            this.budgetBytes = budgetBytes;
+            for (Job j : jobs) pending.merge(j.inst, 1, Integer::sum);
+        }
+
+        SCQBFInstance acquire(Path inst) throws IOException, InterruptedException {
+            synchronized (this) {
+                while (true) {
+                    Entry e = loaded.get(inst);
+                    if (e != null) {
+                        if (e.data != null) return e.data;
+                        wait(); // outra thread está lendo esta instância
+                        continue;
+                    }
+                    long est = estimateBytes(inst);
+                    if (usedBytes == 0 || usedBytes + est <= budgetBytes) {
+                        e = new Entry();
+                        e.bytes = est;
+                        e.pendingJobs = pending.get(inst);
+                        loaded.put(inst, e);
+                        usedBytes += est;
+                        break;
+                    }
+                    wait();
+                }
+            }
+            SCQBFInstance data = null;
+            try {
+                data = SCQBFInstance.load(inst);
+                return data;
+            } finally {
+                synchronized (this) {
+                    if (data != null) {
+                        // troca a estimativa pelo tamanho real (formato esparso, conjuntos)
+                        Entry e = loaded.get(inst);
+                        usedBytes += data.memoryBytes() - e.bytes;
+                        e.bytes = data.memoryBytes();
+                        e.data = data;
+                    } else {
+                        usedBytes -= loaded.remove(inst).bytes;
+                    }
+                    notifyAll();
+                }
+            }
+        }
+
+        synchronized void release(Path inst) {
+            Entry e = loaded.get(inst);
+            if (e != null && --e.pendingJobs == 0) {
+                loaded.remove(inst);
+                usedBytes -= e.bytes;
+                notifyAll();
+            }
+        }
+
+        /** Memória aproximada da instância: a matriz domina (ver CoefficientMatrix.allocate). */
+        static long estimateBytes(Path inst) throws IOException {
+            try (BufferedReader br = Files.newBufferedReader(inst)) {
+                String line;
+                while ((line = br.readLine()) != null && line.trim().isEmpty()) { }
+                if (line == null) return 0;
+                long n = Long.parseLong(line.trim());
+                long cells = (n <= CoefficientMatrix.DENSE_MAX_N) ? n * n : n * (n + 1) / 2;
+                return 8 * cells + 64 * n;
+            } catch (NumberFormatException ex) {
+                throw new IOException("Cabeçalho inválido em " + inst, ex);
+            }
+        }
+    }
+
+    /**
+     * Saída CSV compartilhada pelos jobs. As linhas vão para uma fila escrita
+     * por uma thread própria (AsyncLog), que dá flush sempre que a fila esvazia:
+     * nenhum job espera pelo disco, e cada linha chega ao arquivo logo depois
+     * (permite retomar após queda).
+     */
+    static class CsvSink implements Closeable {
+        static final String HEADER = "instance,config,alpha,mode,ls,best_f,time_s,time_to_best_s,iters,best_iter,seed,workers";
+        private final AsyncLog log;
+
+        CsvSink(Path out, boolean append) throws IOException {
+            boolean writeHeader = !append || !Files.exists(out) || Files.size(out) == 0;
+            Writer w = new BufferedWriter(new FileWriter(out.toFile(), append));
+            if (writeHeader) {
+                w.write(HEADER + System.lineSeparator());
+                w.flush();
+            }
+            log = new AsyncLog("csv-writer", w, 1024, true);
+        }
+
+        /** Enfileira a linha; só espera se a fila estiver cheia (linhas de resultado não são descartadas). */
+        void row(String line) throws InterruptedException, IOException {
+            log.put(line);
+        }
+
+        @Override
+        public void close() throws IOException {
+            log.close();
+        }
+    }
+
+    /**
+     * Métricas por célula (ver GRASPMetrics): uma linha CSV, ou um objeto JSON
+     * por linha se o arquivo termina em .json. Sempre acrescenta ao arquivo.
+     */
+    static class MetricsSink implements Closeable {
+        private final AsyncLog log;
+        private final boolean json;
+
+        MetricsSink(Path out) throws IOException {
+            json = out.getFileName().toString().endsWith(".json");
+            boolean writeHeader = !json && (!Files.exists(out) || Files.size(out) == 0);
+            Writer w = new BufferedWriter(new FileWriter(out.toFile(), true));
+            if (writeHeader) {
+                w.write("instance,config,seed,workers," + GRASPMetrics.CSV_HEADER + System.lineSeparator());
+                w.flush();
+            }
+            log = new AsyncLog("metrics-writer", w, 1024, true);
+        }
+
+        void row(String instance, String config, long seed, int workers, GRASPMetrics m) throws InterruptedException, IOException {
+            if (json) {
+                log.put("{\"instance\":\"" + instance + "\",\"config\":\"" + config + "\",\"seed\":" + seed
+                        + ",\"workers\":" + workers + ",\"metrics\":" + m.toJson() + "}");
+            } else {
+                log.put(instance + "," + config + "," + seed + "," + workers + "," + m.csvRow());
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            log.close();
         }
     }
 
+    /**
+     * Traços de convergência por célula, em colunas: uma linha por célula e, em
+     * time_s/iteration/best_f, a série de pontos separada por ';' (um ponto por
+     * melhora do incumbente). Lido pelo TTTAnalysis. Sempre acrescenta ao arquivo.
+     */
+    static class TraceSink implements Closeable {
+        static final String HEADER = "instance,config,seed,workers,points,time_s,iteration,best_f";
+        private final AsyncLog log;
+
+        TraceSink(Path out) throws IOException {
+            boolean writeHeader = !Files.exists(out) || Files.size(out) == 0;
+            Writer w = new BufferedWriter(new FileWriter(out.toFile(), true));
+            if (writeHeader) {
+                w.write(HEADER + System.lineSeparator());
+                w.flush();
+            }
+            log = new AsyncLog("trace-writer", w, 1024, true);
+        }
+
+        void row(String instance, String config, long seed, int workers, ConvergenceTrace t) throws InterruptedException, IOException {
+            StringBuilder time = new StringBuilder(), iter = new StringBuilder(), f = new StringBuilder();
+            for (int k = 0; k < t.size(); k++) {
+                if (k > 0) { time.append(';'); iter.append(';'); f.append(';'); }
+                time.append(String.format(Locale.ROOT, "%.6f", t.nanos(k) / 1e9));
+                iter.append(t.iteration(k));
+                f.append(String.format(Locale.ROOT, "%.6f", -t.cost(k)));
+            }
+            log.put(instance + "," + config + "," + seed + "," + workers + "," + t.size() + ","
+                    + time + "," + iter + "," + f);
+        }
+
+        @Override
+        public void close() throws IOException {
+            log.close();
+        }
+    }
+
+    /**
+     * Corta uma última linha sem '\n' (escrita interrompida por queda), para
+     * que a próxima linha acrescentada não seja colada nela; a célula dessa
+     * linha não conta como feita e roda de novo. Chamado antes de retomar.
+     */
+    static void truncatePartialLine(Path csv) throws IOException {
+        if (!Files.exists(csv)) return;
+        try (RandomAccessFile f = new RandomAccessFile(csv.toFile(), "rw")) {
+            long end = f.length();
+            byte[] buf = new byte[4096];
+            long pos = end;
+            while (pos > 0) {
+                int len = (int) Math.min(buf.length, pos);
+                f.seek(pos - len);
+                f.readFully(buf, 0, len);
+                for (int k = len - 1; k >= 0; k--) {
+                    if (buf[k] == '\n') {
+                        long keep = pos - len + k + 1;
+                        if (keep < end) f.setLength(keep);
+                        return;
+                    }
+                }
+                pos -= len;
+            }
+            f.setLength(0); // nem o cabeçalho chegou inteiro: reescrito pelo CsvSink
+        }
+    }
+
+    /** Células (instance,config,seed) já presentes num CSV de saída existente. */
+    static Set<String> readDoneCells(Path csv) throws IOException {
+        Set<String> done = new HashSet<>();
+        if (!Files.exists(csv)) return done;
+        try (BufferedReader br = Files.newBufferedReader(csv)) {
+            String header = br.readLine();
+            if (header == null) return done;
+            List<String> cols = Arrays.asList(header.trim().split(","));
+            int iInst = cols.indexOf("instance"), iCfg = cols.indexOf("config"), iSeed = cols.indexOf("seed");
+            if (iInst < 0 || iCfg < 0 || iSeed < 0)
+                throw new IOException("CSV existente sem colunas instance/config/seed: " + csv);
+            String line;
+            while ((line = br.readLine()) != null) {
+                String[] t = line.split(",");
+                if (t.length != cols.size()) continue; // linha truncada por queda
+                done.add(cellKey(t[iInst], t[iCfg], Long.parseLong(t[iSeed])));
+            }
+        }
+        return done;
+    }
+
     static List<Path> loadInstances(String path) throws IOException {
         Path p = Paths.get(path);
         List<Path> insts = new ArrayList<>();
@@ -49,24 +350,178 @@ public class RunnerSCQBF {
     }
 
 
+    /**
+     * Executa uma célula sobre os dados já carregados e devolve a linha do CSV.
+     * Com collectMetrics, cada solver conta suas métricas; a soma dos workers
+     * vai para metricsOut (se houver) e para o evento JFR grasp.Run. Com
+     * traceOut, o traço de convergência (incumbente de todos os workers,
+     * tempos desde o início da célula) vai para lá.
+     */
+    static String runJob(Job job, SCQBFInstance data, double seconds, int workers,
+                         boolean collectMetrics, MetricsSink metricsOut, TraceSink traceOut) throws Exception {
+        Config cfg = job.cfg;
+        String instName = job.inst.getFileName().toString();
+        // cada célula (instância, config) tem seu próprio fluxo aleatório,
+        // independente da ordem/concorrência das demais
+        long cellSeed = Seeds.derive(job.seed, instName, cfg.name);
+        long t0 = System.nanoTime();
+        int iterations = Integer.MAX_VALUE;
+
+        Solution<Integer> best;
+        double bestTimeSec;
+        long iters;
+        int bestIter;
+        GRASPMetrics metrics = null;
+        ConvergenceTrace trace = null;
+        long cacheHits = 0, cacheMisses = 0;
+        // listas de vizinhos da troca granular: montadas uma vez por célula, lidas por todos os workers
+        SCQBFNeighbours nb = (cfg.granularK > 0) ? new SCQBFNeighbours(data, cfg.granularK) : null;
+
+        if (workers <= 1) {
+            GRASP_SCQBF grasp = new GRASP_SCQBF(
+                cfg.alpha, iterations, data,
+                cfg.mode, cfg.ls,
+                cfg.sampleP, cfg.reactiveAlphas, cfg.reactiveBlock
+            );
+            grasp.setTimeLimitSeconds(seconds);
+            grasp.setSeed(cellSeed);
+            if (cfg.pr != PathRelinking.NONE) grasp.setPathRelinking(cfg.pr, cfg.poolSize);
+            grasp.setLocalOptimumCache(cfg.lsCache);
+            if (nb != null) grasp.setGranularSwap(nb, cfg.fullScanPeriod);
+            if (collectMetrics) grasp.setMetrics(new GRASPMetrics());
+            if (traceOut != null) grasp.setTrace(new ConvergenceTrace(t0));
+
+            best = grasp.solve();
+            bestTimeSec = grasp.bestTimeSec;
+            iters = grasp.iterationsRun;
+            bestIter = grasp.bestIter;
+            if (bestIter < 0) best = null; // sem melhor: bestSol ainda é a solução vazia
+            metrics = grasp.getMetrics();
+            trace = grasp.getTrace();
+            if (grasp.getLocalOptimumCache() != null) {
+                cacheHits = grasp.getLocalOptimumCache().hits();
+                cacheMisses = grasp.getLocalOptimumCache().misses();
+            }
+        } else {
+            ParallelGRASP<Integer> par = new ParallelGRASP<>(w -> {
+                GRASP_SCQBF g = new GRASP_SCQBF(
+                    cfg.alpha, iterations, data,
+                    cfg.mode, cfg.ls,
+                    cfg.sampleP, cfg.reactiveAlphas, cfg.reactiveBlock
+                );
+                g.setTimeLimitSeconds(seconds);
+                if (cfg.pr != PathRelinking.NONE) g.setPathRelinking(cfg.pr, cfg.poolSize);
+                g.setLocalOptimumCache(cfg.lsCache);
+                if (nb != null) g.setGranularSwap(nb, cfg.fullScanPeriod);
+                if (collectMetrics) g.setMetrics(new GRASPMetrics());
+                if (traceOut != null) g.setTrace(new ConvergenceTrace(t0));
+                return g;
+            }, workers, cellSeed, seconds);
+
+            best = par.solve();
+            SharedIncumbent.Entry<Integer> inc = par.getIncumbent();
+            // nenhum worker completou uma iteração (limite de tempo curto demais):
+            // sem melhor, como no caminho sequencial (custo +inf, best_iter -1)
+            bestTimeSec = (inc != null) ? inc.timeSec : 0.0;
+            bestIter = (inc != null) ? inc.iteration : -1;
+            iters = 0;
+            for (AbstractGRASP<Integer> g : par.getWorkers()) {
+                GRASP_SCQBF gs = (GRASP_SCQBF) g;
+                iters += gs.iterationsRun;
+                if (gs.getLocalOptimumCache() != null) {
+                    cacheHits += gs.getLocalOptimumCache().hits();
+                    cacheMisses += gs.getLocalOptimumCache().misses();
+                }
+            }
+            if (collectMetrics) {
+                metrics = new GRASPMetrics();
+                for (AbstractGRASP<Integer> g : par.getWorkers()) metrics.merge(g.getMetrics());
+            }
+            if (traceOut != null) {
+                List<ConvergenceTrace> traces = new ArrayList<>();
+                for (AbstractGRASP<Integer> g : par.getWorkers()) traces.add(g.getTrace());
+                trace = ConvergenceTrace.merge(traces);
+            }
+        }
+        if (trace != null) traceOut.row(instName, cfg.name, job.seed, workers, trace);
+        if (metrics != null) {
+            metrics.commitRunEvent(instName, cfg.name);
+            if (metricsOut != null) metricsOut.row(instName, cfg.name, job.seed, workers, metrics);
+        }
+
+        long t1 = System.nanoTime();
+        double bestF = (best != null) ? -best.cost : Double.NEGATIVE_INFINITY;
+        double elapsed = (t1 - t0) / 1e9;
+
+        String cacheInfo = (cacheHits + cacheMisses > 0)
+            ? String.format(Locale.ROOT, " | cache %d/%d (%.1f%%)", cacheHits, cacheHits + cacheMisses,
+                            100.0 * cacheHits / (cacheHits + cacheMisses))
+            : "";
+        AsyncLog.console().put(String.format(
+            "OK: %s | %s | seed=%d | f=%.6f | best@%ds (it %d) | t=%ds%s",
+            instName, cfg.name, job.seed, bestF,
+            Math.round(bestTimeSec),    // %d
+            bestIter,
+            Math.round(elapsed),        // %d
+            cacheInfo
+            ));
+
+        return String.format(Locale.ROOT, "%s,%s,%.2f,%s,%s,%.6f,%.3f,%.3f,%d,%d,%d,%d",
+            instName, cfg.name, cfg.alpha, cfg.mode, cfg.ls,
+            bestF, elapsed, bestTimeSec, iters, bestIter, job.seed, workers
+        );
+    }
+
     public static void main(String[] args) throws Exception {
-        if (args.length < 2) {
-            System.err.println("Uso: java RunnerSCQBF <dir_ou_arquivo-lista> <saida.csv> [minutos=30] [seed=42]");
+        // posicionais + opções --jobs=N (jobs simultâneos), --reps=N (sementes seed..seed+N-1),
+        // --mem-mb=N (orçamento de memória das instâncias carregadas), --fresh (ignora CSV existente),
+        // --bin-cache (lê/grava <instância>.bin, ver SCQBFInstance.binaryCache),
+        // --metrics=arquivo(.csv|.json) (métricas por célula), --jfr (eventos JFR grasp.*, sem arquivo),
+        // --trace=arquivo (traços de convergência por célula, ver TTTAnalysis),
+        // --pr=FORWARD|BACKWARD|MIXED[:pool] (path relinking com pool de elite em todas as configs),
+        // --ls-cache=N (cache LRU de N ótimos locais por solver, em todas as configs),
+        // --ls=FIRST_IMPROVING|BEST_IMPROVING|ADAPTIVE (mesma busca local em todas as configs;
+        // configs que passam a coincidir, ex. STD_a0.20_FIRST/BEST, rodam uma vez só),
+        // --granular=k[:período] (troca granular com k vizinhos; troca completa a cada período buscas, padrão 10)
+        List<String> pos = new ArrayList<>();
+        Map<String, String> opt = new HashMap<>();
+        for (String a : args) {
+            if (a.startsWith("--")) {
+                int eq = a.indexOf('=');
+                opt.put(eq < 0 ? a.substring(2) : a.substring(2, eq), eq < 0 ? "" : a.substring(eq + 1));
+            } else {
+                pos.add(a);
+            }
+        }
+        if (pos.size() < 2) {
+            System.err.println("Uso: java RunnerSCQBF <dir_ou_arquivo-lista> <saida.csv> [minutos=30] [seed=42] [workers=1] [configs=todas]"
+                + " [--jobs=N] [--reps=1] [--mem-mb=N] [--fresh] [--bin-cache] [--metrics=arquivo] [--jfr] [--trace=arquivo] [--pr=MODO[:pool]] [--ls-cache=N] [--ls=TIPO] [--granular=k[:periodo]]");
             System.exit(1);
         }
-        String src = args[0];
-        String outCsv  = args[1];
-        double minutes = (args.length >= 3 ? Double.parseDouble(args[2]) : 30.0);
-        long seed = (args.length >= 4 ? Long.parseLong(args[3]) : 42L);
+        String src = pos.get(0);
+        Path outCsv = Paths.get(pos.get(1));
+        double minutes = (pos.size() >= 3 ? Double.parseDouble(pos.get(2)) : 30.0);
+        long seed = (pos.size() >= 4 ? Long.parseLong(pos.get(3)) : 42L);
+        int workers = (pos.size() >= 5 ? Integer.parseInt(pos.get(4)) : 1);
+        // subconjunto de configs (nomes separados por vírgula), ex.: para reproduzir uma célula do CSV
+        Set<String> only = (pos.size() >= 6 ? new HashSet<>(Arrays.asList(pos.get(5).split(","))) : null);
 
-        // configura seed global do framework
-        AbstractGRASP.setGlobalSeed(seed);
+        int cores = Runtime.getRuntime().availableProcessors();
+        int jobsPar = opt.containsKey("jobs") ? Integer.parseInt(opt.get("jobs")) : Math.max(1, cores / Math.max(1, workers));
+        int reps = opt.containsKey("reps") ? Integer.parseInt(opt.get("reps")) : 1;
+        long memBudget = opt.containsKey("mem-mb") ? Long.parseLong(opt.get("mem-mb")) << 20
+                                                   : (long) (Runtime.getRuntime().maxMemory() * 0.6);
+        boolean fresh = opt.containsKey("fresh");
+        if (opt.containsKey("bin-cache")) SCQBFInstance.binaryCache = true;
+        Path metricsPath = (opt.get("metrics") != null && !opt.get("metrics").isEmpty()) ? Paths.get(opt.get("metrics")) : null;
+        boolean collectMetrics = metricsPath != null || opt.containsKey("jfr");
+        Path tracePath = (opt.get("trace") != null && !opt.get("trace").isEmpty()) ? Paths.get(opt.get("trace")) : null;
 
         double seconds = minutes * 60.0;
 
         // 5 configs pedidas
         double alpha1 = 0.20, alpha2 = 0.60;
-        List<Config> cfgs = List.of(
+        List<Config> allCfgs = List.of(
             new Config("STD_a0.20_FIRST", ConstructionMode.STANDARD, LocalSearchType.FIRST_IMPROVING, alpha1, 0, null, 0),
             new Config("STD_a0.60_FIRST", ConstructionMode.STANDARD, LocalSearchType.FIRST_IMPROVING, alpha2, 0, null, 0),
             new Config("STD_a0.20_BEST",  ConstructionMode.STANDARD, LocalSearchType.BEST_IMPROVING,  alpha1, 0, null, 0),
@@ -75,48 +530,88 @@ public class RunnerSCQBF {
                        0, new double[]{0.10,0.20,0.30,0.40,0.50}, 20)
         );
 
+        PathRelinking pr = PathRelinking.NONE;
+        int poolSize = 10;
+        if (opt.containsKey("pr")) {
+            String[] t = opt.get("pr").split(":");
+            pr = PathRelinking.valueOf(t[0].toUpperCase(Locale.ROOT));
+            if (t.length > 1) poolSize = Integer.parseInt(t[1]);
+        }
+        int lsCache = opt.containsKey("ls-cache") ? Integer.parseInt(opt.get("ls-cache")) : 0;
+        int granularK = 0, fullScanPeriod = 10;
+        if (opt.containsKey("granular")) {
+            String[] t = opt.get("granular").split(":");
+            granularK = Integer.parseInt(t[0]);
+            if (t.length > 1) fullScanPeriod = Integer.parseInt(t[1]);
+        }
+        LocalSearchType lsOverride = opt.containsKey("ls")
+            ? LocalSearchType.valueOf(opt.get("ls").toUpperCase(Locale.ROOT)) : null;
+
+        List<Config> cfgs = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (Config c : allCfgs) {
+            if (lsOverride != null) c = c.withLocalSearch(lsOverride);
+            if (pr != PathRelinking.NONE) c = c.withPathRelinking(pr, poolSize);
+            if (lsCache > 0) c = c.withLocalOptimumCache(lsCache);
+            if (granularK > 0) c = c.withGranularSwap(granularK, fullScanPeriod);
+            if ((only == null || only.contains(c.name)) && names.add(c.name)) cfgs.add(c);
+        }
+        if (cfgs.isEmpty()) {
+            System.err.println("Nenhuma config selecionada: " + pos.get(5));
+            System.exit(1);
+        }
+
         List<Path> insts = loadInstances(src);
 
-        try (PrintWriter pw = new PrintWriter(new FileWriter(outCsv))) {
-            pw.println("instance,config,alpha,mode,ls,best_f,time_s,time_to_best_s,iters,best_iter,seed");
-            for (Path inst : insts) {
-                String fname = inst.toString();
-                for (Config cfg : cfgs) {
-                    long t0 = System.nanoTime();
-                    int iterations = Integer.MAX_VALUE;
-
-                    GRASP_SCQBF grasp = new GRASP_SCQBF(
-                        cfg.alpha, iterations, fname,
-                        cfg.mode, cfg.ls,
-                        cfg.sampleP, cfg.reactiveAlphas, cfg.reactiveBlock
-                    );
-                    GRASP_SCQBF.verbose = true;
-                    grasp.setTimeLimitSeconds(seconds);
-
-                    Solution<Integer> best = grasp.solve();
-
-                    long t1 = System.nanoTime();
-                    double bestF = -best.cost;
-                    double elapsed = (t1 - t0) / 1e9;
-
-                    pw.printf("%s,%s,%.2f,%s,%s,%.6f,%.3f,%.3f,%d,%d,%d%n",
-                        inst.getFileName().toString(), cfg.name, cfg.alpha, cfg.mode, cfg.ls,
-                        bestF, elapsed, grasp.bestTimeSec, grasp.iterationsRun, grasp.bestIter, seed
-                    );
-                    pw.flush();
-
-                    System.out.printf(
-                        "OK: %s | %s | f=%.6f | best@%ds (it %d) | t=%ds%n",
-                        inst.getFileName(), cfg.name, bestF,
-                        Math.round(grasp.bestTimeSec),    // %d
-                        grasp.bestIter,
-                        Math.round(elapsed)               // %d
-                        );
+        // grade (instância × config × semente), agrupada por instância; pula células já no CSV
+        if (!fresh) truncatePartialLine(outCsv);
+        Set<String> done = fresh ? Collections.emptySet() : readDoneCells(outCsv);
+        List<Job> jobs = new ArrayList<>();
+        for (Path inst : insts)
+            for (Config cfg : cfgs)
+                for (int r = 0; r < reps; r++) {
+                    Job j = new Job(inst, cfg, seed + r);
+                    if (!done.contains(j.key())) jobs.add(j);
+                }
+        int total = insts.size() * cfgs.size() * reps;
+        AsyncLog console = AsyncLog.console();
+        console.put(String.format("%d células (%d já no CSV), %d jobs simultâneos, %d worker(s) por job",
+            total, total - jobs.size(), jobsPar, workers));
 
+        GRASP_SCQBF.verbose = true;
+        InstanceCache cache = new InstanceCache(jobs, memBudget);
+        ExecutorService pool = Executors.newFixedThreadPool(jobsPar);
+        int failures = 0;
+        try (CsvSink sink = new CsvSink(outCsv, !fresh);
+             MetricsSink metricsOut = (metricsPath != null) ? new MetricsSink(metricsPath) : null;
+             TraceSink traceOut = (tracePath != null) ? new TraceSink(tracePath) : null) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Job job : jobs) {
+                futures.add(pool.submit(() -> {
+                    SCQBFInstance data = cache.acquire(job.inst);
+                    try {
+                        sink.row(runJob(job, data, seconds, workers, collectMetrics, metricsOut, traceOut));
+                    } finally {
+                        cache.release(job.inst);
+                    }
+                    return null;
+                }));
+            }
+            for (int k = 0; k < futures.size(); k++) {
+                try {
+                    futures.get(k).get();
+                } catch (ExecutionException e) {
+                    failures++;
+                    System.err.println("FALHA: " + jobs.get(k).key() + ": " + e.getCause());
+                    e.getCause().printStackTrace();
                 }
             }
+        } finally {
+            pool.shutdown();
         }
-        System.out.println("Resultados salvos em: " + outCsv);
+        console.put("Resultados salvos em: " + outCsv);
+        console.close();
+        if (failures > 0) System.exit(1);
     }
     
 }
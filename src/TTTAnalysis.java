@@ -0,0 +1,151 @@
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Curvas time-to-target (TTT) a partir dos traços de convergência gravados
+ * pelo Runner (--trace=arquivo).
+ *
+ * Para cada instância o alvo é f* · (1 - gap) (f* = melhor f entre todos os
+ * traços da instância; --gap=0.01 por padrão) ou um valor fixo (--target=F).
+ * O tempo até o alvo de uma execução é o primeiro ponto do traço com
+ * f >= alvo. Por (instância, config), os tempos das n execuções são ordenados
+ * e o i-ésimo recebe a probabilidade empírica (i - 0.5)/n, como nos gráficos
+ * TTT de Aiex, Resende e Ribeiro; execuções que não chegam ao alvo entram em n
+ * mas não geram ponto (a curva termina abaixo de 1).
+ *
+ * Saída: CSV instance,config,target,k,time_s,prob (uma linha por ponto da
+ * ECDF) e, com --plot=arquivo.gp, um script gnuplot com uma curva por config.
+ */
+public class TTTAnalysis {
+
+    /** Uma execução (linha do arquivo de traços). */
+    static class Run {
+        final String instance, config;
+        final double[] time, f;
+        Run(String instance, String config, double[] time, double[] f) {
+            this.instance = instance; this.config = config; this.time = time; this.f = f;
+        }
+        double bestF() { return f.length == 0 ? Double.NEGATIVE_INFINITY : f[f.length - 1]; }
+        /** Tempo até o primeiro f >= target, ou NaN se não chegou. */
+        double timeTo(double target) {
+            for (int k = 0; k < f.length; k++) if (f[k] >= target) return time[k];
+            return Double.NaN;
+        }
+    }
+
+    static double[] series(String s) {
+        if (s.isEmpty()) return new double[0];
+        String[] t = s.split(";");
+        double[] v = new double[t.length];
+        for (int k = 0; k < t.length; k++) v[k] = Double.parseDouble(t[k]);
+        return v;
+    }
+
+    static List<Run> read(Path file) throws IOException {
+        List<Run> runs = new ArrayList<>();
+        try (BufferedReader br = Files.newBufferedReader(file)) {
+            String header = br.readLine();
+            if (header == null) return runs;
+            List<String> cols = Arrays.asList(header.trim().split(","));
+            int iInst = cols.indexOf("instance"), iCfg = cols.indexOf("config");
+            int iTime = cols.indexOf("time_s"), iF = cols.indexOf("best_f");
+            if (iInst < 0 || iCfg < 0 || iTime < 0 || iF < 0)
+                throw new IOException("Arquivo de traços sem colunas instance/config/time_s/best_f: " + file);
+            String line;
+            while ((line = br.readLine()) != null) {
+                // split com limite -1: séries vazias (nenhuma melhora) viram ""
+                String[] t = line.split(",", -1);
+                if (t.length != cols.size()) continue; // linha truncada por queda
+                double[] time = series(t[iTime]), f = series(t[iF]);
+                if (time.length != f.length) continue;
+                runs.add(new Run(t[iInst], t[iCfg], time, f));
+            }
+        }
+        return runs;
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<String> pos = new ArrayList<>();
+        Map<String, String> opt = new HashMap<>();
+        for (String a : args) {
+            if (a.startsWith("--")) {
+                int eq = a.indexOf('=');
+                opt.put(eq < 0 ? a.substring(2) : a.substring(2, eq), eq < 0 ? "" : a.substring(eq + 1));
+            } else {
+                pos.add(a);
+            }
+        }
+        if (pos.size() < 2) {
+            System.err.println("Uso: java TTTAnalysis <tracos.csv> <saida_ttt.csv> [--gap=0.01 | --target=F] [--plot=ttt.gp]");
+            System.exit(1);
+        }
+        Path in = Paths.get(pos.get(0)), out = Paths.get(pos.get(1));
+        double gap = opt.containsKey("gap") ? Double.parseDouble(opt.get("gap")) : 0.01;
+        Double fixedTarget = opt.containsKey("target") ? Double.valueOf(opt.get("target")) : null;
+
+        List<Run> runs = read(in);
+        // instância -> config -> execuções (ordem de aparição preservada)
+        Map<String, Map<String, List<Run>>> groups = new TreeMap<>();
+        Map<String, Double> bestF = new HashMap<>();
+        for (Run r : runs) {
+            groups.computeIfAbsent(r.instance, k -> new LinkedHashMap<>())
+                  .computeIfAbsent(r.config, k -> new ArrayList<>()).add(r);
+            bestF.merge(r.instance, r.bestF(), Math::max);
+        }
+
+        List<String[]> curves = new ArrayList<>(); // (título, bloco de dados) para o gnuplot
+        try (PrintWriter pw = new PrintWriter(Files.newBufferedWriter(out))) {
+            pw.println("instance,config,target,k,time_s,prob");
+            for (Map.Entry<String, Map<String, List<Run>>> ei : groups.entrySet()) {
+                String inst = ei.getKey();
+                double fStar = bestF.get(inst);
+                double target = (fixedTarget != null) ? fixedTarget : fStar - gap * Math.abs(fStar);
+                System.out.printf(Locale.ROOT, "%s: alvo f >= %.6f (melhor f = %.6f)%n", inst, target, fStar);
+                for (Map.Entry<String, List<Run>> ec : ei.getValue().entrySet()) {
+                    List<Run> rs = ec.getValue();
+                    double[] t = new double[rs.size()];
+                    int reached = 0;
+                    for (Run r : rs) {
+                        double x = r.timeTo(target);
+                        if (!Double.isNaN(x)) t[reached++] = x;
+                    }
+                    Arrays.sort(t, 0, reached);
+                    StringBuilder data = new StringBuilder();
+                    for (int k = 0; k < reached; k++) {
+                        double p = (k + 0.5) / rs.size();
+                        pw.printf(Locale.ROOT, "%s,%s,%.6f,%d,%.6f,%.6f%n", inst, ec.getKey(), target, k + 1, t[k], p);
+                        data.append(String.format(Locale.ROOT, "%.6f %.6f%n", t[k], p));
+                    }
+                    String median = (2 * reached > rs.size())
+                            ? String.format(Locale.ROOT, "%.3fs", t[(rs.size() - 1) / 2]) : "-";
+                    System.out.printf(Locale.ROOT, "  %-20s %d/%d execuções no alvo, mediana %s%n",
+                            ec.getKey(), reached, rs.size(), median);
+                    if (reached > 0) curves.add(new String[]{inst + " " + ec.getKey(), data.toString()});
+                }
+            }
+        }
+
+        if (opt.containsKey("plot") && !opt.get("plot").isEmpty()) {
+            try (PrintWriter gp = new PrintWriter(Files.newBufferedWriter(Paths.get(opt.get("plot"))))) {
+                gp.println("set xlabel 'tempo até o alvo (s)'");
+                gp.println("set ylabel 'probabilidade acumulada'");
+                gp.println("set yrange [0:1]");
+                gp.println("set key bottom right");
+                gp.println("set logscale x");
+                for (int c = 0; c < curves.size(); c++) {
+                    gp.println("$c" + c + " << EOD");
+                    gp.print(curves.get(c)[1]);
+                    gp.println("EOD");
+                }
+                StringBuilder plot = new StringBuilder("plot");
+                for (int c = 0; c < curves.size(); c++) {
+                    plot.append(c == 0 ? " " : ", ").append("$c").append(c)
+                        .append(" using 1:2 with steps title '").append(curves.get(c)[0].replace("'", "")).append("'");
+                }
+                gp.println(plot);
+            }
+        }
+        System.out.println("Curvas TTT salvas em: " + out);
+    }
+}
@@ -4,9 +4,13 @@
 package metaheuristics.grasp;
 
 import java.util.ArrayList;
-import java.util.Random;
+import java.util.List;
+import java.util.SplittableRandom;
 
+import problems.BinaryEvaluator;
 import problems.Evaluator;
+import solutions.IndexedIntSet;
+import solutions.IntSolution;
 import solutions.Solution;
 
 /**
@@ -26,14 +30,50 @@ public abstract class AbstractGRASP<E> {
 	public static boolean verbose = true;
 
 	/**
-	 * a random number generator
+	 * minimum interval, in milliseconds, between two progress messages of a
+	 * solver (see {@link #reportBest}); improvements found in between are
+	 * only counted
 	 */
-	protected static Random rng = new Random(0);
+	public static long progressIntervalMillis = Long.getLong("grasp.progressMillis", 1000L);
+
+	/**
+	 * the seed given to the random number generator of solvers created from
+	 * now on
+	 */
+	private static long globalSeed = 0;
 
 	public static void setGlobalSeed(long seed) {
-        rng = new Random(seed);
+        globalSeed = seed;
     }
 
+	/**
+	 * a random number generator, owned by this solver (never shared between
+	 * threads, see {@link Seeds} for deriving independent seeds)
+	 */
+	protected SplittableRandom rng = new SplittableRandom(globalSeed);
+
+	/**
+	 * the incumbent shared with other workers of a {@link ParallelGRASP}, or
+	 * null when running alone
+	 */
+	protected SharedIncumbent<E> incumbent;
+
+	/**
+	 * the index of this solver among the workers of a {@link ParallelGRASP}
+	 */
+	protected int workerId = 0;
+
+	/**
+	 * the counters of this solver's runs, or null when metrics are disabled
+	 * (see {@link GRASPMetrics})
+	 */
+	protected GRASPMetrics metrics;
+
+	/**
+	 * the convergence trace of this solver's runs, or null when not recorded
+	 */
+	protected ConvergenceTrace trace;
+
 	/**
 	 * the objective function being optimized
 	 */
@@ -70,22 +110,47 @@ public abstract class AbstractGRASP<E> {
 	protected Integer iterations;
 
 	/**
-	 * the Candidate List of elements to enter the solution.
+	 * the Candidate List of elements to enter the solution. Its removals and
+	 * membership tests are on the hot path, so solvers should provide a
+	 * structure where they are cheap (e.g. {@link solutions.IndexedIntSet}).
 	 */
-	protected ArrayList<E> CL;
+	protected List<E> CL;
 
 	/**
-	 * the Restricted Candidate List of elements to enter the solution.
+	 * the Restricted Candidate List of elements to enter the solution, for
+	 * solvers that build their own; the default
+	 * {@link #constructiveHeuristic()} keeps the RCL as positions in
+	 * {@link #CL} instead, and leaves this list empty.
 	 */
 	protected ArrayList<E> RCL;
 
 	/**
-	 * Creates the Candidate List, which is an ArrayList of candidate elements
-	 * that can enter a solution.
+	 * when the last progress message was queued, and how many improvements
+	 * were not reported since then
+	 */
+	private long lastProgressNanos;
+	private boolean progressReported;
+	private int progressSkipped;
+
+	/**
+	 * insertion costs of the candidates of the current constructive step,
+	 * indexed by position in {@link #CL}
+	 */
+	private double[] deltas = new double[0];
+
+	/**
+	 * positions in {@link #CL} of the candidates of the RCL of the current
+	 * constructive step
+	 */
+	private int[] rclPos = new int[0];
+
+	/**
+	 * Creates the Candidate List, which is a List of candidate elements that
+	 * can enter a solution.
 	 *
 	 * @return The Candidate List.
 	 */
-	public abstract ArrayList<E> makeCL();
+	public abstract List<E> makeCL();
 
 	/**
 	 * Creates the Restricted Candidate List, which is an ArrayList of the best
@@ -138,11 +203,205 @@ public abstract class AbstractGRASP<E> {
 		this.iterations = iterations;
 	}
 
+	/**
+	 * Restarts the random number generator of this solver.
+	 *
+	 * @param seed
+	 *            the new seed.
+	 */
+	public void setSeed(long seed) {
+		rng = new SplittableRandom(seed);
+	}
+
+	/**
+	 * Shuffles the first len positions of an array with this solver's random
+	 * number generator (Fisher-Yates).
+	 */
+	protected void shuffle(int[] a, int len) {
+		for (int i = len - 1; i > 0; i--) {
+			int j = rng.nextInt(i + 1);
+			int t = a[i];
+			a[i] = a[j];
+			a[j] = t;
+		}
+	}
+
+	/**
+	 * Shuffles the order of an {@link IndexedIntSet} in place with this
+	 * solver's random number generator (Fisher-Yates).
+	 */
+	protected void shuffle(IndexedIntSet set) {
+		for (int i = set.size() - 1; i > 0; i--)
+			set.swapPositions(i, rng.nextInt(i + 1));
+	}
+
+	/**
+	 * Shuffles a list with this solver's random number generator
+	 * (Fisher-Yates).
+	 */
+	protected <T> void shuffle(List<T> list) {
+		for (int i = list.size() - 1; i > 0; i--) {
+			int j = rng.nextInt(i + 1);
+			list.set(j, list.set(i, list.get(j)));
+		}
+	}
+
+	/**
+	 * A progress message, formatted on the writer thread of the
+	 * {@link AsyncLog} (the solution is a snapshot).
+	 */
+	private static final class Progress {
+		final int iteration;
+		final String tag;
+		final Solution<?> best;
+		final int skipped;
+
+		Progress(int iteration, String tag, Solution<?> best, int skipped) {
+			this.iteration = iteration;
+			this.tag = tag;
+			this.best = best;
+			this.skipped = skipped;
+		}
+
+		@Override
+		public String toString() {
+			return "(Iter " + iteration + ") " + (tag == null ? "" : tag + " ") + "Best = " + best
+					+ (skipped > 0 ? " [+" + skipped + " improvements not shown]" : "");
+		}
+	}
+
+	/**
+	 * Reports a new best solution when {@link #verbose}. The message is queued
+	 * on {@link AsyncLog#console()} (never blocking the solver) and at most
+	 * one is queued every {@link #progressIntervalMillis} per solver; a
+	 * snapshot of {@link #bestSol} is taken only for the messages that are
+	 * queued.
+	 *
+	 * @param iteration
+	 *            the iteration in which it was found.
+	 * @param tag
+	 *            extra text shown before the solution, or null.
+	 */
+	protected void reportBest(int iteration, String tag) {
+		if (!verbose)
+			return;
+		long now = System.nanoTime();
+		if (progressReported && now - lastProgressNanos < progressIntervalMillis * 1_000_000L) {
+			progressSkipped++;
+			return;
+		}
+		progressReported = true;
+		lastProgressNanos = now;
+		if (AsyncLog.console().offer(new Progress(iteration, tag, bestSol.copy(), progressSkipped)))
+			progressSkipped = 0;
+		else
+			progressSkipped++;
+	}
+
+	/**
+	 * Enables (or, with null, disables) the collection of metrics by this
+	 * solver. The counters accumulate over the following runs.
+	 *
+	 * @param metrics
+	 *            the counters to update, owned by this solver's thread.
+	 */
+	public void setMetrics(GRASPMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * @return the counters of this solver, or null if metrics are disabled.
+	 */
+	public GRASPMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Enables (or, with null, disables) the recording of a convergence trace:
+	 * each new best solution published by {@link #publish(int)} is appended
+	 * to it.
+	 *
+	 * @param trace
+	 *            the trace to append to, owned by this solver's thread.
+	 */
+	public void setTrace(ConvergenceTrace trace) {
+		this.trace = trace;
+	}
+
+	/**
+	 * @return the convergence trace of this solver, or null if not recorded.
+	 */
+	public ConvergenceTrace getTrace() {
+		return trace;
+	}
+
+	/**
+	 * Makes this solver a worker of a parallel GRASP: improvements are
+	 * published to the shared incumbent and the main loop stops once its
+	 * global time limit expires.
+	 *
+	 * @param incumbent
+	 *            the incumbent shared by all workers.
+	 * @param workerId
+	 *            the index of this worker.
+	 */
+	public void attach(SharedIncumbent<E> incumbent, int workerId) {
+		this.incumbent = incumbent;
+		this.workerId = workerId;
+	}
+
+	/**
+	 * Publishes the current solution, which has just become this solver's
+	 * best, to the shared incumbent and to the convergence trace, if any.
+	 *
+	 * @param iteration
+	 *            the iteration in which it was found.
+	 */
+	protected void publish(int iteration) {
+		if (trace != null)
+			trace.record(iteration, sol.cost);
+		if (incumbent != null)
+			incumbent.offer(sol, workerId, iteration);
+	}
+
+	/**
+	 * @return true if the shared time limit of a parallel run has expired.
+	 */
+	protected boolean sharedTimeExpired() {
+		return incumbent != null && incumbent.expired();
+	}
+
+	/**
+	 * Inserts a candidate into the current solution during the constructive
+	 * phase. The default adds the element and updates the solution cost by the
+	 * given variation; solvers whose objective function keeps incremental state
+	 * bound to the solution override it to commit the move there, so that the
+	 * next insertion costs are read from that state instead of recomputed.
+	 *
+	 * @param elem
+	 *            the candidate being inserted.
+	 * @param deltaCost
+	 *            its insertion cost, as computed in this step.
+	 */
+	protected void insertIntoSolution(E elem, double deltaCost) {
+		sol.add(elem);
+		sol.cost += deltaCost;
+	}
+
 	/**
 	 * The GRASP constructive heuristic, which is responsible for building a
 	 * feasible solution by selecting in a greedy-random fashion, candidate
 	 * elements to enter the solution.
 	 *
+	 * Each step evaluates the insertion cost of every candidate once, into
+	 * {@link #deltas}, and builds the RCL from that array as positions in
+	 * {@link #CL}; the solution cost is kept up to date from the chosen
+	 * candidate's insertion cost, so the solution is fully evaluated only once,
+	 * at the start. For a {@link BinaryEvaluator} over an
+	 * {@link IndexedIntSet} candidate list and an {@link IntSolution}, the
+	 * candidates are evaluated through the primitive overloads, so the loop
+	 * never boxes.
+	 *
 	 * @return A feasible solution to the problem being minimized.
 	 */
 	public Solution<E> constructiveHeuristic() {
@@ -150,21 +409,41 @@ public abstract class AbstractGRASP<E> {
 		CL = makeCL();
 		RCL = makeRCL();
 		sol = createEmptySol();
+		ObjFunction.evaluate(sol);
 		cost = Double.POSITIVE_INFINITY;
+		if (metrics != null)
+			metrics.evalFull++;
+		BinaryEvaluator binEval = null;
+		IndexedIntSet intCL = null;
+		IntSolution intSol = null;
+		if (ObjFunction instanceof BinaryEvaluator && CL instanceof IndexedIntSet && sol instanceof IntSolution) {
+			binEval = (BinaryEvaluator) ObjFunction;
+			intCL = (IndexedIntSet) CL;
+			intSol = (IntSolution) sol;
+		}
 
 		/* Main loop, which repeats until the stopping criteria is reached. */
 		while (!constructiveStopCriteria()) {
 
 			double maxCost = Double.NEGATIVE_INFINITY, minCost = Double.POSITIVE_INFINITY;
-			cost = ObjFunction.evaluate(sol);
+			cost = sol.cost;
 			updateCL();
+			int size = CL.size();
+			if (size == 0)
+				break;
+			if (deltas.length < size) {
+				deltas = new double[Math.max(size, 2 * deltas.length)];
+				rclPos = new int[deltas.length];
+			}
 
 			/*
-			 * Explore all candidate elements to enter the solution, saving the
-			 * highest and lowest cost variation achieved by the candidates.
+			 * Explore all candidate elements to enter the solution, saving
+			 * their cost variations and the highest and lowest ones.
 			 */
-			for (E c : CL) {
-				Double deltaCost = ObjFunction.evaluateInsertionCost(c, sol);
+			for (int k = 0; k < size; k++) {
+				double deltaCost = (binEval != null) ? binEval.evaluateInsertionCost(intCL.getInt(k), intSol)
+						: ObjFunction.evaluateInsertionCost(CL.get(k), sol);
+				deltas[k] = deltaCost;
 				if (deltaCost < minCost)
 					minCost = deltaCost;
 				if (deltaCost > maxCost)
@@ -175,26 +454,49 @@ public abstract class AbstractGRASP<E> {
 			 * Among all candidates, insert into the RCL those with the highest
 			 * performance using parameter alpha as threshold.
 			 */
-			for (E c : CL) {
-				Double deltaCost = ObjFunction.evaluateInsertionCost(c, sol);
-				if (deltaCost <= minCost + alpha * (maxCost - minCost)) {
-					RCL.add(c);
-				}
+			double threshold = minCost + alpha * (maxCost - minCost);
+			int rclSize = 0;
+			for (int k = 0; k < size; k++) {
+				if (deltas[k] <= threshold)
+					rclPos[rclSize++] = k;
+			}
+
+			if (metrics != null) {
+				metrics.evalInsertion += size;
+				metrics.rcl(rclSize);
 			}
 
 			/* Choose a candidate randomly from the RCL */
-			int rndIndex = rng.nextInt(RCL.size());
-			E inCand = RCL.get(rndIndex);
+			int inPos = rclPos[rng.nextInt(rclSize)];
+			E inCand = CL.get(inPos);
+			double inDelta = deltas[inPos];
 			CL.remove(inCand);
-			sol.add(inCand);
-			ObjFunction.evaluate(sol);
-			RCL.clear();
+			insertIntoSolution(inCand, inDelta);
 
 		}
 
 		return sol;
 	}
 
+	/**
+	 * One GRASP iteration: the constructive heuristic followed by the local
+	 * search. With metrics enabled, the time of each phase and the number of
+	 * local search steps are recorded.
+	 */
+	protected void runIteration() {
+		if (metrics == null) {
+			constructiveHeuristic();
+			localSearch();
+			return;
+		}
+		long t0 = System.nanoTime();
+		constructiveHeuristic();
+		long t1 = System.nanoTime();
+		long steps = metrics.acceptedTotal();
+		localSearch();
+		metrics.iteration(t1 - t0, System.nanoTime() - t1, metrics.acceptedTotal() - steps);
+	}
+
 	/**
 	 * The GRASP mainframe. It consists of a loop, in which each iteration goes
 	 * through the constructive heuristic and local search. The best solution is
@@ -205,13 +507,12 @@ public abstract class AbstractGRASP<E> {
 	public Solution<E> solve() {
 
 		bestSol = createEmptySol();
-		for (int i = 0; i < iterations; i++) {
-			constructiveHeuristic();
-			localSearch();
+		for (int i = 0; i < iterations && !sharedTimeExpired(); i++) {
+			runIteration();
 			if (bestSol.cost > sol.cost) {
-				bestSol = new Solution<E>(sol);
-				if (verbose)
-					System.out.println("(Iter. " + i + ") BestSol = " + bestSol);
+				bestSol = sol.copy();
+				publish(i);
+				reportBest(i, null);
 			}
 		}
 
@@ -0,0 +1,277 @@
+package metaheuristics.grasp;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Line output written by a background thread, so that solver threads never
+ * block on console or file I/O. Records go through a bounded queue and are
+ * turned into text with {@link Object#toString()} on the writer thread only,
+ * so callers may pass a small immutable record instead of a formatted String
+ * (e.g. a snapshot of a solution, formatted only if and when it is written).
+ *
+ * {@link #offer(Object)} never blocks: when the queue is full the record is
+ * dropped and counted, which is the right policy for progress messages.
+ * {@link #put(Object)} waits for room instead, for records that must not be
+ * lost (result rows). Every log is flushed and closed by a shutdown hook, so
+ * queued records are still written when the JVM exits early (time limit,
+ * System.exit, Ctrl-C), within {@link #SHUTDOWN_TIMEOUT_MILLIS}.
+ *
+ * If writing fails (e.g. disk full), the writer thread stops and keeps the
+ * error: {@link #put(Object)} and {@link #close()} then throw it as an
+ * {@link IOException} instead of waiting for a queue nobody drains.
+ */
+public final class AsyncLog implements Closeable {
+
+	/**
+	 * Maximum wait for the queued records when closing on JVM shutdown.
+	 */
+	public static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+
+	private static final Object END = new Object();
+
+	private static final List<AsyncLog> open = new ArrayList<>();
+
+	private static AsyncLog console;
+
+	static {
+		Runtime.getRuntime().addShutdownHook(new Thread(AsyncLog::closeAll, "async-log-shutdown"));
+	}
+
+	private final BlockingQueue<Object> queue;
+
+	private final Writer out;
+
+	private final boolean closeOut;
+
+	private final Thread writer;
+
+	private final AtomicLong dropped = new AtomicLong();
+
+	private volatile boolean closed;
+
+	/**
+	 * the error that stopped the writer thread, or null
+	 */
+	private volatile IOException failure;
+
+	/**
+	 * how long {@link #put(Object)} waits for room before checking the writer
+	 * again
+	 */
+	private static final long PUT_POLL_MILLIS = 100;
+
+	/**
+	 * @param name
+	 *            name of the writer thread.
+	 * @param out
+	 *            destination of the lines; flushed after each batch of
+	 *            records, i.e. whenever the queue runs empty.
+	 * @param capacity
+	 *            the number of records the queue holds.
+	 * @param closeOut
+	 *            whether {@link #close()} also closes out.
+	 */
+	public AsyncLog(String name, Writer out, int capacity, boolean closeOut) {
+		this.queue = new ArrayBlockingQueue<>(capacity);
+		this.out = out;
+		this.closeOut = closeOut;
+		this.writer = new Thread(this::drain, name);
+		writer.setDaemon(true);
+		writer.start();
+		synchronized (open) {
+			open.add(this);
+		}
+	}
+
+	/**
+	 * @return the log shared by everything that writes to the standard output.
+	 */
+	public static synchronized AsyncLog console() {
+		if (console == null)
+			console = new AsyncLog("async-log-console",
+					new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)), 4096, false);
+		return console;
+	}
+
+	/**
+	 * Queues a record without blocking.
+	 *
+	 * @return false if the queue was full (or the log closed) and the record
+	 *         was dropped.
+	 */
+	public boolean offer(Object record) {
+		if (!closed && queue.offer(record))
+			return true;
+		dropped.incrementAndGet();
+		return false;
+	}
+
+	/**
+	 * Queues a record, waiting for room if the queue is full.
+	 *
+	 * @throws IOException
+	 *             if the writer thread has failed (the record is not queued).
+	 */
+	public void put(Object record) throws InterruptedException, IOException {
+		while (true) {
+			// the check and the enqueue under the lock of close(), so that no
+			// record is queued after END
+			synchronized (this) {
+				if (closed)
+					throw new IllegalStateException("log closed");
+				checkFailure();
+				if (queue.offer(record))
+					return;
+			}
+			// full: wait for room outside the lock, then check again
+			synchronized (queue) {
+				queue.wait(PUT_POLL_MILLIS);
+			}
+			if (!writer.isAlive()) {
+				checkFailure();
+				throw new IOException("[AsyncLog] " + writer.getName() + ": writer thread stopped");
+			}
+		}
+	}
+
+	private void checkFailure() throws IOException {
+		IOException e = failure;
+		if (e != null)
+			throw new IOException("[AsyncLog] " + writer.getName() + ": write failed", e);
+	}
+
+	/**
+	 * @return the number of records dropped by {@link #offer(Object)}.
+	 */
+	public long dropped() {
+		return dropped.get();
+	}
+
+	private void drain() {
+		List<Object> batch = new ArrayList<>();
+		try {
+			while (true) {
+				batch.add(queue.take());
+				queue.drainTo(batch);
+				synchronized (queue) {
+					queue.notifyAll(); // room for put()
+				}
+				boolean end = false;
+				for (Object r : batch) {
+					if (r == END) {
+						end = true;
+						break;
+					}
+					write(r);
+				}
+				batch.clear();
+				out.flush();
+				if (end)
+					return;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException e) {
+			failure = e;
+			System.err.println("[AsyncLog] " + writer.getName() + ": " + e.getMessage());
+		} finally {
+			synchronized (queue) {
+				queue.notifyAll(); // wake put() so it sees the failure
+			}
+		}
+	}
+
+	private void write(Object r) throws IOException {
+		String line;
+		try {
+			line = String.valueOf(r);
+		} catch (RuntimeException e) {
+			line = "[AsyncLog] record could not be formatted: " + e;
+		}
+		out.write(line);
+		out.write(System.lineSeparator());
+	}
+
+	/**
+	 * Stops accepting records and waits up to timeoutMillis for the queued
+	 * ones to be written and flushed. Returns at once if the writer thread has
+	 * already stopped.
+	 *
+	 * @return true if everything was written within the timeout.
+	 */
+	public boolean close(long timeoutMillis) {
+		synchronized (this) {
+			if (closed)
+				return !writer.isAlive() && failure == null;
+			closed = true;
+		}
+		synchronized (open) {
+			open.remove(this);
+		}
+		boolean done = false;
+		try {
+			if (enqueueEnd(timeoutMillis)) {
+				writer.join(timeoutMillis);
+				done = !writer.isAlive() && failure == null;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		try {
+			if (closeOut && !writer.isAlive())
+				out.close();
+		} catch (IOException e) {
+			System.err.println("[AsyncLog] " + writer.getName() + ": " + e.getMessage());
+		}
+		return done;
+	}
+
+	/**
+	 * Queues END, waiting up to timeoutMillis for room while the writer thread
+	 * is alive.
+	 */
+	private boolean enqueueEnd(long timeoutMillis) throws InterruptedException {
+		for (long left = timeoutMillis; left > 0; left -= PUT_POLL_MILLIS) {
+			if (queue.offer(END, Math.min(left, PUT_POLL_MILLIS), TimeUnit.MILLISECONDS))
+				return true;
+			if (!writer.isAlive())
+				return false;
+		}
+		return false;
+	}
+
+	/**
+	 * Closes the log, waiting for the queued records without a time limit
+	 * while the writer thread is alive.
+	 *
+	 * @throws IOException
+	 *             if the writer thread failed, i.e. some records were not
+	 *             written.
+	 */
+	@Override
+	public void close() throws IOException {
+		close(Long.MAX_VALUE);
+		checkFailure();
+	}
+
+	private static void closeAll() {
+		List<AsyncLog> logs;
+		synchronized (open) {
+			logs = new ArrayList<>(open);
+		}
+		for (AsyncLog log : logs)
+			log.close(SHUTDOWN_TIMEOUT_MILLIS);
+	}
+
+}
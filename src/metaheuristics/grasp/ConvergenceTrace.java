@@ -0,0 +1,135 @@
+package metaheuristics.grasp;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Convergence trace of a GRASP run: one point (elapsed time, iteration,
+ * cost) per improvement of the incumbent, in primitive append-only arrays.
+ * Improvements are rare compared to iterations, so recording costs an
+ * amortized O(1) append on an already rare path and nothing on the others.
+ *
+ * Times are measured from an origin given at creation; the workers of a
+ * {@link ParallelGRASP} should share it, so that their traces can be
+ * combined with {@link #merge}. A solver records into its trace
+ * ({@link AbstractGRASP#setTrace}) whenever it publishes a new best
+ * solution, across all its runs.
+ */
+public final class ConvergenceTrace {
+
+	private final long originNanos;
+
+	private long[] nanos = new long[16];
+
+	private int[] iterations = new int[16];
+
+	private double[] costs = new double[16];
+
+	private int size;
+
+	/**
+	 * A trace whose times are measured from now.
+	 */
+	public ConvergenceTrace() {
+		this(System.nanoTime());
+	}
+
+	/**
+	 * @param originNanos
+	 *            the {@link System#nanoTime()} from which times are measured.
+	 */
+	public ConvergenceTrace(long originNanos) {
+		this.originNanos = originNanos;
+	}
+
+	/**
+	 * Appends a point, timed now.
+	 *
+	 * @param iteration
+	 *            the iteration in which the solution was found.
+	 * @param cost
+	 *            its cost.
+	 */
+	public void record(int iteration, double cost) {
+		add(System.nanoTime() - originNanos, iteration, cost);
+	}
+
+	private void add(long elapsedNanos, int iteration, double cost) {
+		if (size == nanos.length) {
+			int cap = 2 * size;
+			nanos = Arrays.copyOf(nanos, cap);
+			iterations = Arrays.copyOf(iterations, cap);
+			costs = Arrays.copyOf(costs, cap);
+		}
+		nanos[size] = elapsedNanos;
+		iterations[size] = iteration;
+		costs[size] = cost;
+		size++;
+	}
+
+	/**
+	 * @return the number of points.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the elapsed time of point k, in nanoseconds since the origin.
+	 */
+	public long nanos(int k) {
+		return nanos[k];
+	}
+
+	/**
+	 * @return the iteration of point k.
+	 */
+	public int iteration(int k) {
+		return iterations[k];
+	}
+
+	/**
+	 * @return the cost of point k.
+	 */
+	public double cost(int k) {
+		return costs[k];
+	}
+
+	/**
+	 * Combines the traces of several workers into the trace of their shared
+	 * incumbent: all points in time order, keeping only those that improve on
+	 * every earlier one (ties in time are broken by cost). The traces should
+	 * share the same origin.
+	 *
+	 * @return the merged trace (with the origin of the first one).
+	 */
+	public static ConvergenceTrace merge(List<ConvergenceTrace> traces) {
+		int total = 0;
+		for (ConvergenceTrace t : traces)
+			total += t.size;
+		Integer[] order = new Integer[total];
+		long[] n = new long[total];
+		int[] it = new int[total];
+		double[] c = new double[total];
+		int k = 0;
+		for (ConvergenceTrace t : traces) {
+			for (int p = 0; p < t.size; p++, k++) {
+				order[k] = k;
+				n[k] = t.nanos[p];
+				it[k] = t.iterations[p];
+				c[k] = t.costs[p];
+			}
+		}
+		Arrays.sort(order, (a, b) -> (n[a] != n[b]) ? Long.compare(n[a], n[b]) : Double.compare(c[a], c[b]));
+		ConvergenceTrace merged = new ConvergenceTrace(traces.isEmpty() ? 0L : traces.get(0).originNanos);
+		double best = Double.POSITIVE_INFINITY;
+		for (int q : order) {
+			if (c[q] < best) {
+				best = c[q];
+				merged.add(n[q], it[q], c[q]);
+			}
+		}
+		return merged;
+	}
+
+}
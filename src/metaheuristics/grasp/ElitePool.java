@@ -0,0 +1,164 @@
+package metaheuristics.grasp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import solutions.BitVector;
+import solutions.IntSolution;
+
+/**
+ * Bounded pool of elite solutions of a binary problem, for path relinking:
+ * good solutions that differ enough from each other. It follows the usual
+ * update rule of GRASP with path relinking (Resende and Ribeiro): a solution
+ * better than every member always enters; otherwise it enters only if it is
+ * at Hamming distance at least {@link #minDistance} from every member. When
+ * the pool is full the newcomer must be better than the worst member, and it
+ * replaces the most similar among the members worse than it.
+ *
+ * Members keep their elements as a {@link BitVector}, so the Hamming distance
+ * to each member is a popcount over n/64 words, and a 64-bit hash of that
+ * vector: duplicates are found by comparing hashes, and the vectors only on a
+ * hash match. The distance itself is computed only where the update rule
+ * needs it (a newcomer that is not the best, or a full pool).
+ */
+public class ElitePool {
+
+	/**
+	 * An elite solution (a snapshot, never changed after it enters the pool).
+	 */
+	public static final class Member {
+		public final IntSolution sol;
+		public final BitVector bits;
+		final long hash;
+
+		Member(IntSolution sol, BitVector bits, long hash) {
+			this.sol = sol;
+			this.bits = bits;
+			this.hash = hash;
+		}
+
+		public double cost() {
+			return sol.cost;
+		}
+
+		public boolean contains(int e) {
+			return bits.get(e);
+		}
+	}
+
+	private final int capacity;
+
+	private final int domainSize;
+
+	/**
+	 * the minimum Hamming distance from a new solution to every member, unless
+	 * it is better than all of them
+	 */
+	public final int minDistance;
+
+	private final List<Member> members = new ArrayList<>();
+
+	/**
+	 * bitset of the solution being offered, reused between offers
+	 */
+	private final BitVector scratch;
+
+	/**
+	 * @param capacity
+	 *            the maximum number of members.
+	 * @param domainSize
+	 *            the number of decision variables.
+	 * @param minDistance
+	 *            the minimum Hamming distance between a new member and the
+	 *            others (see the class description).
+	 */
+	public ElitePool(int capacity, int domainSize, int minDistance) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("capacity must be >= 1: " + capacity);
+		this.capacity = capacity;
+		this.domainSize = domainSize;
+		this.minDistance = minDistance;
+		this.scratch = new BitVector(domainSize);
+	}
+
+	/**
+	 * @return the number of members.
+	 */
+	public int size() {
+		return members.size();
+	}
+
+	/**
+	 * @return the k-th member (in no particular order).
+	 */
+	public Member get(int k) {
+		return members.get(k);
+	}
+
+	/**
+	 * @return a member chosen uniformly at random, or null if the pool is
+	 *         empty.
+	 */
+	public Member random(SplittableRandom rng) {
+		return members.isEmpty() ? null : members.get(rng.nextInt(members.size()));
+	}
+
+	/**
+	 * Removes every member.
+	 */
+	public void clear() {
+		members.clear();
+	}
+
+	/**
+	 * Offers a solution to the pool; it is copied if it enters.
+	 *
+	 * @return true if it entered the pool.
+	 */
+	public boolean offer(IntSolution sol) {
+		double cost = sol.cost;
+		Member worst = null, best = null;
+		for (Member m : members) {
+			if (worst == null || m.cost() > worst.cost())
+				worst = m;
+			if (best == null || m.cost() < best.cost())
+				best = m;
+		}
+		boolean full = members.size() >= capacity;
+		if (full && cost >= worst.cost())
+			return false;
+
+		scratch.assign(sol);
+		long hash = scratch.hash64();
+
+		boolean newBest = best == null || cost < best.cost();
+		boolean checkDistance = !newBest && minDistance > 0;
+		Member closestWorse = null;
+		int closestWorseDist = Integer.MAX_VALUE;
+		for (Member m : members) {
+			if (m.hash == hash && scratch.equals(m.bits))
+				return false; // already in the pool
+			boolean candidate = full && m.cost() > cost;
+			if (!checkDistance && !candidate)
+				continue;
+			int dist = BitVector.distance(scratch, m.bits);
+			if (checkDistance && dist < minDistance)
+				return false;
+			if (candidate && dist < closestWorseDist) {
+				closestWorseDist = dist;
+				closestWorse = m;
+			}
+		}
+
+		IntSolution copy = new IntSolution(domainSize);
+		copy.copyFrom(sol);
+		Member entry = new Member(copy, new BitVector(scratch), hash);
+		if (full)
+			members.set(members.indexOf(closestWorse), entry);
+		else
+			members.add(entry);
+		return true;
+	}
+
+}
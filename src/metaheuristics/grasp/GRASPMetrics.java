@@ -0,0 +1,344 @@
+package metaheuristics.grasp;
+
+import java.util.Locale;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Counters of a GRASP run: evaluator calls by type, local search moves
+ * evaluated and accepted per neighbourhood, time split between construction
+ * and local search, local search steps per iteration and the RCL size
+ * distribution, and the hits and misses of the local optimum cache
+ * ({@link LocalOptimumCache}), when the solver uses one.
+ *
+ * A solver collects metrics only when it was given an instance of this class
+ * ({@link AbstractGRASP#setMetrics}); otherwise its metrics field is null and
+ * the instrumentation costs one null check per loop, with no allocation. The
+ * counters are plain fields, updated by the single thread that owns the
+ * solver; the workers of a {@link ParallelGRASP} each have their own, which
+ * are combined with {@link #merge} after the run.
+ *
+ * A run summary can be exported as a CSV row ({@link #CSV_HEADER},
+ * {@link #csvRow()}) or as a JSON object ({@link #toJson()}). When a flight
+ * recording is active, iterations and runs are also committed as the JFR
+ * events {@code grasp.Iteration} and {@code grasp.Run}.
+ */
+public final class GRASPMetrics {
+
+	/**
+	 * Neighbourhood indices of {@link #evaluated} and {@link #accepted}.
+	 */
+	public static final int ADD = 0, DROP = 1, SWAP = 2;
+
+	private static final String[] MOVE_NAMES = { "add", "drop", "swap" };
+
+	/**
+	 * Number of power-of-two buckets of the histograms: bucket b holds the
+	 * values v with 2^(b-1) <= v < 2^b (bucket 0 holds v = 0).
+	 */
+	public static final int BUCKETS = 32;
+
+	/**
+	 * full evaluations (rebuilds of the evaluator state from a solution)
+	 */
+	public long evalFull;
+
+	/**
+	 * insertion, removal and exchange cost queries, in the constructive phase
+	 * and in the local search
+	 */
+	public long evalInsertion, evalRemoval, evalExchange;
+
+	/**
+	 * local search moves evaluated and accepted, by neighbourhood
+	 */
+	public final long[] evaluated = new long[3], accepted = new long[3];
+
+	/**
+	 * completed iterations and the time spent in each phase
+	 */
+	public long iterations, constructionNanos, localSearchNanos;
+
+	/**
+	 * accepted local search moves per iteration
+	 */
+	public long lsStepsMax;
+	public final long[] lsStepsHist = new long[BUCKETS];
+
+	/**
+	 * RCL sizes, one sample per constructive step
+	 */
+	public long rclSamples, rclSizeSum, rclSizeMax;
+	public final long[] rclSizeHist = new long[BUCKETS];
+
+	/**
+	 * iterations whose construction was found in / missing from the local
+	 * optimum cache (both zero without a cache)
+	 */
+	public long lsCacheHits, lsCacheMisses;
+
+	/**
+	 * The histogram bucket of a non-negative value.
+	 */
+	public static int bucket(long v) {
+		return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(v));
+	}
+
+	/**
+	 * Records n local search evaluations of a neighbourhood (also counted as
+	 * evaluator calls of the corresponding type).
+	 */
+	public void evaluated(int move, long n) {
+		evaluated[move] += n;
+		if (move == ADD)
+			evalInsertion += n;
+		else if (move == DROP)
+			evalRemoval += n;
+		else
+			evalExchange += n;
+	}
+
+	/**
+	 * Records an accepted local search move.
+	 */
+	public void accepted(int move) {
+		accepted[move]++;
+	}
+
+	/**
+	 * @return the local search moves accepted so far, in all neighbourhoods.
+	 */
+	public long acceptedTotal() {
+		return accepted[ADD] + accepted[DROP] + accepted[SWAP];
+	}
+
+	/**
+	 * Records the RCL size of a constructive step.
+	 */
+	public void rcl(int size) {
+		rclSamples++;
+		rclSizeSum += size;
+		if (size > rclSizeMax)
+			rclSizeMax = size;
+		rclSizeHist[bucket(size)]++;
+	}
+
+	/**
+	 * Records a completed iteration.
+	 *
+	 * @param constructionNanos
+	 *            time spent in the constructive heuristic.
+	 * @param localSearchNanos
+	 *            time spent in the local search.
+	 * @param steps
+	 *            moves accepted by the local search.
+	 */
+	public void iteration(long constructionNanos, long localSearchNanos, long steps) {
+		iterations++;
+		this.constructionNanos += constructionNanos;
+		this.localSearchNanos += localSearchNanos;
+		if (steps > lsStepsMax)
+			lsStepsMax = steps;
+		lsStepsHist[bucket(steps)]++;
+		IterationEvent ev = new IterationEvent();
+		if (ev.shouldCommit()) {
+			ev.construction = constructionNanos;
+			ev.localSearch = localSearchNanos;
+			ev.steps = steps;
+			ev.commit();
+		}
+	}
+
+	/**
+	 * Adds the counters of other (e.g. another worker of the same run) to
+	 * these.
+	 */
+	public void merge(GRASPMetrics other) {
+		evalFull += other.evalFull;
+		evalInsertion += other.evalInsertion;
+		evalRemoval += other.evalRemoval;
+		evalExchange += other.evalExchange;
+		for (int m = 0; m < 3; m++) {
+			evaluated[m] += other.evaluated[m];
+			accepted[m] += other.accepted[m];
+		}
+		iterations += other.iterations;
+		constructionNanos += other.constructionNanos;
+		localSearchNanos += other.localSearchNanos;
+		lsStepsMax = Math.max(lsStepsMax, other.lsStepsMax);
+		rclSamples += other.rclSamples;
+		rclSizeSum += other.rclSizeSum;
+		rclSizeMax = Math.max(rclSizeMax, other.rclSizeMax);
+		lsCacheHits += other.lsCacheHits;
+		lsCacheMisses += other.lsCacheMisses;
+		for (int b = 0; b < BUCKETS; b++) {
+			lsStepsHist[b] += other.lsStepsHist[b];
+			rclSizeHist[b] += other.rclSizeHist[b];
+		}
+	}
+
+	/**
+	 * @return the total local search steps (accepted moves).
+	 */
+	public long lsSteps() {
+		return acceptedTotal();
+	}
+
+	/**
+	 * Commits the run summary as a {@code grasp.Run} JFR event, if a
+	 * recording is collecting it.
+	 *
+	 * @param instance
+	 *            the instance name.
+	 * @param config
+	 *            the solver configuration name.
+	 */
+	public void commitRunEvent(String instance, String config) {
+		RunEvent ev = new RunEvent();
+		if (!ev.shouldCommit())
+			return;
+		ev.instance = instance;
+		ev.config = config;
+		ev.iterations = iterations;
+		ev.construction = constructionNanos;
+		ev.localSearch = localSearchNanos;
+		ev.evalInsertion = evalInsertion;
+		ev.evalRemoval = evalRemoval;
+		ev.evalExchange = evalExchange;
+		ev.accepted = acceptedTotal();
+		ev.commit();
+	}
+
+	/* ---------- Export ---------- */
+
+	/**
+	 * Columns of {@link #csvRow()}.
+	 */
+	public static final String CSV_HEADER = "iterations,construction_s,local_search_s,eval_full,eval_insertion,"
+			+ "eval_removal,eval_exchange,add_evaluated,add_accepted,drop_evaluated,drop_accepted,swap_evaluated,"
+			+ "swap_accepted,ls_steps_mean,ls_steps_max,rcl_mean,rcl_max,ls_steps_hist,rcl_hist,ls_cache_hits,"
+			+ "ls_cache_misses";
+
+	/**
+	 * @return the summary as CSV fields (see {@link #CSV_HEADER}); the
+	 *         histograms are written as '|'-separated bucket counts, up to the
+	 *         last non-empty bucket.
+	 */
+	public String csvRow() {
+		return String.format(Locale.ROOT, "%d,%.3f,%.3f,%d,%d,%d,%d,%d,%d,%d,%d,%d,%d,%.2f,%d,%.2f,%d,%s,%s,%d,%d",
+				iterations, constructionNanos / 1e9, localSearchNanos / 1e9, evalFull, evalInsertion, evalRemoval,
+				evalExchange, evaluated[ADD], accepted[ADD], evaluated[DROP], accepted[DROP], evaluated[SWAP],
+				accepted[SWAP], mean(lsSteps(), iterations), lsStepsMax, mean(rclSizeSum, rclSamples), rclSizeMax,
+				histogram(lsStepsHist, "|"), histogram(rclSizeHist, "|"), lsCacheHits, lsCacheMisses);
+	}
+
+	/**
+	 * @return the summary as a JSON object.
+	 */
+	public String toJson() {
+		StringBuilder sb = new StringBuilder(512);
+		sb.append("{\"iterations\":").append(iterations);
+		sb.append(String.format(Locale.ROOT, ",\"construction_s\":%.3f,\"local_search_s\":%.3f",
+				constructionNanos / 1e9, localSearchNanos / 1e9));
+		sb.append(",\"eval\":{\"full\":").append(evalFull).append(",\"insertion\":").append(evalInsertion)
+				.append(",\"removal\":").append(evalRemoval).append(",\"exchange\":").append(evalExchange)
+				.append('}');
+		sb.append(",\"moves\":{");
+		for (int m = 0; m < 3; m++) {
+			if (m > 0)
+				sb.append(',');
+			sb.append('"').append(MOVE_NAMES[m]).append("\":{\"evaluated\":").append(evaluated[m])
+					.append(",\"accepted\":").append(accepted[m]).append('}');
+		}
+		sb.append('}');
+		sb.append(String.format(Locale.ROOT, ",\"ls_steps\":{\"mean\":%.2f,\"max\":%d,\"hist\":[%s]}",
+				mean(lsSteps(), iterations), lsStepsMax, histogram(lsStepsHist, ",")));
+		sb.append(String.format(Locale.ROOT, ",\"rcl\":{\"mean\":%.2f,\"max\":%d,\"hist\":[%s]}",
+				mean(rclSizeSum, rclSamples), rclSizeMax, histogram(rclSizeHist, ",")));
+		sb.append(",\"ls_cache\":{\"hits\":").append(lsCacheHits).append(",\"misses\":").append(lsCacheMisses)
+				.append('}');
+		return sb.append('}').toString();
+	}
+
+	private static double mean(long sum, long count) {
+		return (count == 0) ? 0.0 : (double) sum / count;
+	}
+
+	private static String histogram(long[] hist, String sep) {
+		int last = hist.length - 1;
+		while (last > 0 && hist[last] == 0)
+			last--;
+		StringBuilder sb = new StringBuilder();
+		for (int b = 0; b <= last; b++) {
+			if (b > 0)
+				sb.append(sep);
+			sb.append(hist[b]);
+		}
+		return sb.toString();
+	}
+
+	/* ---------- JFR events ---------- */
+
+	/**
+	 * One GRASP iteration (construction plus local search).
+	 */
+	@Name("grasp.Iteration")
+	@Label("GRASP Iteration")
+	@Category("GRASP")
+	public static final class IterationEvent extends Event {
+		@Label("Construction")
+		@Timespan(Timespan.NANOSECONDS)
+		long construction;
+
+		@Label("Local Search")
+		@Timespan(Timespan.NANOSECONDS)
+		long localSearch;
+
+		@Label("Local Search Steps")
+		long steps;
+	}
+
+	/**
+	 * Summary of a GRASP run.
+	 */
+	@Name("grasp.Run")
+	@Label("GRASP Run")
+	@Category("GRASP")
+	@Description("Counters of a GRASP run (all workers)")
+	public static final class RunEvent extends Event {
+		@Label("Instance")
+		String instance;
+
+		@Label("Configuration")
+		String config;
+
+		@Label("Iterations")
+		long iterations;
+
+		@Label("Construction")
+		@Timespan(Timespan.NANOSECONDS)
+		long construction;
+
+		@Label("Local Search")
+		@Timespan(Timespan.NANOSECONDS)
+		long localSearch;
+
+		@Label("Insertion Evaluations")
+		long evalInsertion;
+
+		@Label("Removal Evaluations")
+		long evalRemoval;
+
+		@Label("Exchange Evaluations")
+		long evalExchange;
+
+		@Label("Accepted Moves")
+		long accepted;
+	}
+
+}
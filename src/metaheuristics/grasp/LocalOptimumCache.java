@@ -0,0 +1,95 @@
+package metaheuristics.grasp;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import solutions.IntSolution;
+
+/**
+ * Bounded map from the hash of a constructed solution to the local optimum
+ * that the local search reached from it, so that a construction seen before
+ * (frequent with a small alpha) skips the local search. Entries are evicted in
+ * least-recently-used order once {@link #capacity} is reached.
+ *
+ * Keys are 64-bit hashes of the constructed solution (e.g. a Zobrist hash
+ * maintained by the evaluator), trusted without comparing the solutions: a
+ * collision would only hand back another feasible local optimum, with its own
+ * correct cost. With a randomized local search (first-improving) a hit returns
+ * the optimum of the first visit, not a new draw.
+ */
+public final class LocalOptimumCache {
+
+	private final int capacity;
+
+	private final LinkedHashMap<Long, IntSolution> map;
+
+	private long hits, misses;
+
+	/**
+	 * @param capacity
+	 *            the maximum number of local optima kept.
+	 */
+	public LocalOptimumCache(int capacity) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("capacity must be >= 1: " + capacity);
+		this.capacity = capacity;
+		this.map = new LinkedHashMap<Long, IntSolution>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, IntSolution> eldest) {
+				return size() > LocalOptimumCache.this.capacity;
+			}
+		};
+	}
+
+	/**
+	 * Looks up the local optimum reached from a construction, counting a hit
+	 * or a miss.
+	 *
+	 * @param key
+	 *            the hash of the constructed solution.
+	 * @return the cached local optimum (not to be modified), or null.
+	 */
+	public IntSolution get(long key) {
+		IntSolution opt = map.get(key);
+		if (opt != null)
+			hits++;
+		else
+			misses++;
+		return opt;
+	}
+
+	/**
+	 * Records the local optimum reached from a construction; it is copied.
+	 *
+	 * @param key
+	 *            the hash of the constructed solution.
+	 */
+	public void put(long key, IntSolution localOptimum) {
+		map.put(key, localOptimum.copy());
+	}
+
+	/**
+	 * @return the number of entries.
+	 */
+	public int size() {
+		return map.size();
+	}
+
+	/**
+	 * Removes every entry (the counters are kept).
+	 */
+	public void clear() {
+		map.clear();
+	}
+
+	public long hits() {
+		return hits;
+	}
+
+	public long misses() {
+		return misses;
+	}
+
+}
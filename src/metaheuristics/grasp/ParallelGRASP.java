@@ -0,0 +1,140 @@
+package metaheuristics.grasp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import solutions.Solution;
+
+/**
+ * Runs independent GRASP workers on separate threads. GRASP iterations only
+ * interact through the incumbent, so each worker is a complete
+ * {@link AbstractGRASP} with its own objective function state, random number
+ * generator and solution buffers, created by a {@link WorkerFactory}. The
+ * workers share a {@link SharedIncumbent}, which holds the best solution and
+ * the global time limit.
+ * 
+ * Worker w is seeded with {@link #workerSeed(long, int)}, and no worker reads
+ * the others' results, so for a given seed, worker count and per-worker
+ * iteration budget the result is reproducible. Under a time limit only the
+ * number of iterations each worker manages to complete may vary.
+ * 
+ * @param <E>
+ *            Generic type of the element which composes the solution.
+ */
+public class ParallelGRASP<E> {
+
+	/**
+	 * Creates the solver run by worker w. Each call must return an
+	 * independent solver, whose objective function state is not shared with
+	 * other workers (problem data may be).
+	 */
+	public interface WorkerFactory<E> {
+		AbstractGRASP<E> create(int worker) throws Exception;
+	}
+
+	private final WorkerFactory<E> factory;
+
+	private final int workers;
+
+	private final long seed;
+
+	private final long timeLimitNanos;
+
+	private final List<AbstractGRASP<E>> solvers = new ArrayList<>();
+
+	private SharedIncumbent<E> incumbent;
+
+	/**
+	 * @param factory
+	 *            creates the solver of each worker.
+	 * @param workers
+	 *            the number of worker threads.
+	 * @param seed
+	 *            the base seed, from which the workers' seeds are derived.
+	 * @param timeLimitSeconds
+	 *            the global time limit (Double.POSITIVE_INFINITY for none).
+	 */
+	public ParallelGRASP(WorkerFactory<E> factory, int workers, long seed, double timeLimitSeconds) {
+		if (workers < 1)
+			throw new IllegalArgumentException("workers must be >= 1: " + workers);
+		this.factory = factory;
+		this.workers = workers;
+		this.seed = seed;
+		this.timeLimitNanos = Double.isInfinite(timeLimitSeconds) ? Long.MAX_VALUE : (long) (timeLimitSeconds * 1e9);
+	}
+
+	/**
+	 * The seed of worker w, derived from the base seed with {@link Seeds}, so
+	 * neighbouring workers get unrelated streams.
+	 */
+	public static long workerSeed(long seed, int worker) {
+		return Seeds.derive(seed, worker);
+	}
+
+	/**
+	 * Creates the workers, runs them to completion (or to the global time
+	 * limit) and returns the best solution found by any of them.
+	 * 
+	 * @return the incumbent, or null if no worker completed an iteration.
+	 */
+	public Solution<E> solve() throws Exception {
+
+		incumbent = new SharedIncumbent<E>(timeLimitNanos);
+		solvers.clear();
+		for (int w = 0; w < workers; w++) {
+			AbstractGRASP<E> grasp = factory.create(w);
+			grasp.setSeed(workerSeed(seed, w));
+			grasp.attach(incumbent, w);
+			solvers.add(grasp);
+		}
+
+		ExecutorService pool = Executors.newFixedThreadPool(workers, r -> {
+			Thread t = new Thread(r, "grasp-worker");
+			t.setDaemon(true);
+			return t;
+		});
+		try {
+			List<Future<Solution<E>>> futures = new ArrayList<>();
+			for (AbstractGRASP<E> grasp : solvers)
+				futures.add(pool.submit(grasp::solve));
+			for (Future<Solution<E>> f : futures) {
+				try {
+					f.get();
+				} catch (ExecutionException e) {
+					for (Future<Solution<E>> g : futures)
+						g.cancel(true);
+					Throwable cause = e.getCause();
+					if (cause instanceof Exception)
+						throw (Exception) cause;
+					throw e;
+				}
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+
+		SharedIncumbent.Entry<E> best = incumbent.get();
+		return (best == null) ? null : best.sol;
+	}
+
+	/**
+	 * @return the incumbent record of the last {@link #solve()} (worker,
+	 *         iteration and time at which it was found).
+	 */
+	public SharedIncumbent.Entry<E> getIncumbent() {
+		return (incumbent == null) ? null : incumbent.get();
+	}
+
+	/**
+	 * @return the workers' solvers of the last {@link #solve()}, indexed by
+	 *         worker id.
+	 */
+	public List<AbstractGRASP<E>> getWorkers() {
+		return solvers;
+	}
+
+}
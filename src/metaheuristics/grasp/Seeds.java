@@ -0,0 +1,54 @@
+package metaheuristics.grasp;
+
+/**
+ * Deterministic derivation of random number generator seeds. A run is
+ * identified by a base seed plus a path of keys (e.g. instance name,
+ * configuration name, worker index); each distinct path yields an unrelated
+ * 64-bit seed, so any single cell of an experiment can be replayed on its own,
+ * independently of which other cells ran before it or concurrently with it.
+ */
+public final class Seeds {
+
+	private Seeds() {
+	}
+
+	/**
+	 * SplitMix64 finalizer: a bijective mix of the 64 bits of z.
+	 */
+	public static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Derives the seed of a child stream identified by a numeric key.
+	 */
+	public static long derive(long seed, long key) {
+		return mix64(seed + mix64(key + 0x9E3779B97F4A7C15L));
+	}
+
+	/**
+	 * Derives the seed of a child stream identified by a string key. The UTF-16
+	 * chars of the key are folded one at a time through {@link #mix64(long)},
+	 * then the length is mixed in; the result depends only on the characters,
+	 * so it is stable across JVMs and runs.
+	 */
+	public static long derive(long seed, String key) {
+		long h = 0x6A09E667F3BCC909L;
+		for (int i = 0; i < key.length(); i++)
+			h = mix64(h ^ key.charAt(i));
+		return derive(seed, h ^ key.length());
+	}
+
+	/**
+	 * Derives a seed from a path of string keys, applied in order.
+	 */
+	public static long derive(long seed, String... path) {
+		long s = seed;
+		for (String key : path)
+			s = derive(s, key);
+		return s;
+	}
+
+}
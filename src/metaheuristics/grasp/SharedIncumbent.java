@@ -0,0 +1,96 @@
+package metaheuristics.grasp;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import solutions.Solution;
+
+/**
+ * Incumbent solution shared by the workers of a {@link ParallelGRASP}, plus
+ * the global deadline they all obey. Workers publish their improvements with
+ * {@link #offer}; the incumbent is replaced atomically (compare-and-set over
+ * an immutable record) so no lock is held on the solvers' threads.
+ * 
+ * Ties in cost are broken by the lowest worker id and then by the earliest
+ * iteration, so the final incumbent depends only on what each worker found,
+ * not on the order in which the threads happened to publish it.
+ * 
+ * @param <E>
+ *            Generic type of the element which composes the solution.
+ */
+public class SharedIncumbent<E> {
+
+	/**
+	 * An immutable snapshot of the incumbent and where it was found.
+	 */
+	public static final class Entry<E> {
+		public final Solution<E> sol;
+		public final int worker;
+		public final int iteration;
+		public final double timeSec;
+
+		Entry(Solution<E> sol, int worker, int iteration, double timeSec) {
+			this.sol = sol;
+			this.worker = worker;
+			this.iteration = iteration;
+			this.timeSec = timeSec;
+		}
+
+		boolean betterThan(Entry<E> o) {
+			if (o == null || sol.cost != o.sol.cost)
+				return o == null || sol.cost < o.sol.cost;
+			if (worker != o.worker)
+				return worker < o.worker;
+			return iteration < o.iteration;
+		}
+	}
+
+	private final AtomicReference<Entry<E>> best = new AtomicReference<>();
+
+	private final long startNanos;
+
+	private final long deadlineNanos;
+
+	/**
+	 * @param timeLimitNanos
+	 *            the global time budget, counted from now (Long.MAX_VALUE for
+	 *            no limit).
+	 */
+	public SharedIncumbent(long timeLimitNanos) {
+		this.startNanos = System.nanoTime();
+		this.deadlineNanos = (timeLimitNanos == Long.MAX_VALUE) ? Long.MAX_VALUE : startNanos + timeLimitNanos;
+	}
+
+	/**
+	 * Offers a solution found by a worker. The solution is copied only if it
+	 * becomes the incumbent.
+	 * 
+	 * @return true if the solution became the incumbent.
+	 */
+	public boolean offer(Solution<E> sol, int worker, int iteration) {
+		Entry<E> cur = best.get();
+		if (cur != null && sol.cost > cur.sol.cost)
+			return false;
+		Entry<E> cand = new Entry<E>(sol.copy(), worker, iteration, (System.nanoTime() - startNanos) / 1e9);
+		while (cand.betterThan(cur)) {
+			if (best.compareAndSet(cur, cand))
+				return true;
+			cur = best.get();
+		}
+		return false;
+	}
+
+	/**
+	 * @return the incumbent (null if nothing has been offered yet).
+	 */
+	public Entry<E> get() {
+		return best.get();
+	}
+
+	/**
+	 * @return true once the global time limit has been reached.
+	 */
+	public boolean expired() {
+		return deadlineNanos != Long.MAX_VALUE && System.nanoTime() - deadlineNanos >= 0;
+	}
+
+}
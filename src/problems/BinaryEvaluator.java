@@ -0,0 +1,65 @@
+package problems;
+
+import solutions.IntSolution;
+
+/**
+ * Evaluator for binary problems, whose solutions are subsets of the decision
+ * variables {0, ..., n-1}. Besides the generic {@link Evaluator} contract it
+ * offers primitive overloads over {@link IntSolution}, so that solvers can
+ * query costs without boxing elements or costs.
+ * 
+ * @see Evaluator
+ */
+public interface BinaryEvaluator extends Evaluator<Integer> {
+
+	/**
+	 * Primitive version of {@link #evaluate(solutions.Solution)}.
+	 * 
+	 * @param sol
+	 *            the solution under evaluation.
+	 * @return the evaluation of a solution.
+	 */
+	public abstract double evaluate(IntSolution sol);
+
+	/**
+	 * Primitive version of
+	 * {@link #evaluateInsertionCost(Object, solutions.Solution)}.
+	 * 
+	 * @param elem
+	 *            the element under consideration for insertion.
+	 * @param sol
+	 *            the solution for which the element insertion is being
+	 *            evaluated.
+	 * @return the cost variation resulting from the element insertion.
+	 */
+	public abstract double evaluateInsertionCost(int elem, IntSolution sol);
+
+	/**
+	 * Primitive version of
+	 * {@link #evaluateRemovalCost(Object, solutions.Solution)}.
+	 * 
+	 * @param elem
+	 *            the element under consideration for removal.
+	 * @param sol
+	 *            the solution for which the element removal is being
+	 *            evaluated.
+	 * @return the cost variation resulting from the element removal.
+	 */
+	public abstract double evaluateRemovalCost(int elem, IntSolution sol);
+
+	/**
+	 * Primitive version of
+	 * {@link #evaluateExchangeCost(Object, Object, solutions.Solution)}.
+	 * 
+	 * @param elemIn
+	 *            the element under consideration for insertion.
+	 * @param elemOut
+	 *            the element under consideration for removal.
+	 * @param sol
+	 *            the solution for which the elements exchange is being
+	 *            evaluated.
+	 * @return the cost variation resulting from the elements exchange.
+	 */
+	public abstract double evaluateExchangeCost(int elemIn, int elemOut, IntSolution sol);
+
+}
@@ -0,0 +1,283 @@
+package problems;
+
+import java.util.Arrays;
+
+/**
+ * Matrix A of coefficients of a quadratic binary function f(x) = x'.A.x, as
+ * given in the instance files: upper triangular, i.e., a_ij = 0 for i > j.
+ * Evaluators mostly need the symmetric coupling a_ij + a_ji between two
+ * variables, so implementations are free to store it in whichever layout
+ * serves that access best.
+ * 
+ * Instances are filled once, through a {@link Builder} (which also picks the
+ * layout), while the input is read; the matrix itself has no public mutator,
+ * so it is read-only and a single one can be shared by several evaluators and
+ * threads.
+ */
+public abstract class CoefficientMatrix {
+
+	/**
+	 * Largest dimension for which a dense {@link Builder} uses the dense
+	 * symmetric layout (n*n doubles); above it the packed triangle (n(n+1)/2
+	 * doubles) is used. Can be set with -Dqbf.denseMaxN.
+	 */
+	public static int DENSE_MAX_N = Integer.getInteger("qbf.denseMaxN", 4096);
+
+	/**
+	 * Largest fraction of nonzero off-diagonal coefficients for which a
+	 * {@link Builder} keeps the sparse layout ({@link SparseSymmetricMatrix}).
+	 * Can be set with -Dqbf.sparseMaxDensity (0 disables the sparse layout).
+	 */
+	public static double SPARSE_MAX_DENSITY = Double.parseDouble(System.getProperty("qbf.sparseMaxDensity", "0.25"));
+
+	/**
+	 * Dimension of the matrix.
+	 */
+	protected final int n;
+
+	/**
+	 * see {@link #minSyms()}; null until first needed
+	 */
+	private volatile double[] minSyms;
+
+	protected CoefficientMatrix(int n) {
+		this.n = n;
+	}
+
+	/**
+	 * Allocates an all-zero matrix of dimension n in the layout best suited to
+	 * its size.
+	 * 
+	 * @param n
+	 *            the dimension of the matrix.
+	 * @return the allocated matrix.
+	 */
+	private static CoefficientMatrix allocate(int n) {
+		return (n <= DENSE_MAX_N) ? new DenseSymmetricMatrix(n) : new PackedTriangularMatrix(n);
+	}
+
+	/**
+	 * @param n
+	 *            the dimension of the matrix.
+	 * @return a builder that chooses between the sparse and the dense
+	 *         layouts from the density of the coefficients it receives.
+	 */
+	public static Builder builder(int n) {
+		return new Builder(n);
+	}
+
+	/**
+	 * @return the dimension of the matrix.
+	 */
+	public int size() {
+		return n;
+	}
+
+	/**
+	 * @return the coefficient a_ij (zero below the diagonal).
+	 */
+	public abstract double get(int i, int j);
+
+	/**
+	 * @return the diagonal coefficient a_ii.
+	 */
+	public abstract double diag(int i);
+
+	/**
+	 * @return the coupling a_ij + a_ji between two distinct variables.
+	 */
+	public abstract double sym(int i, int j);
+
+	/**
+	 * Adds scale * (a_ij + a_ji) to w[j] for every j != i. This is the update
+	 * of the interaction sums when variable i enters (scale = 1) or leaves
+	 * (scale = -1) the solution.
+	 * 
+	 * @param i
+	 *            the variable whose row is added.
+	 * @param scale
+	 *            the factor applied to the row.
+	 * @param w
+	 *            the accumulator, of length n.
+	 */
+	public abstract void addRowTo(int i, double scale, double[] w);
+
+	/**
+	 * @return the approximate heap footprint of the stored coefficients, in
+	 *         bytes.
+	 */
+	public abstract long memoryBytes();
+
+	/**
+	 * @return the sum of a_ij * x[j] over j >= i, i.e., row i of the upper
+	 *         triangle times x. The layouts that keep this row contiguous
+	 *         compute it with {@link RowKernel}.
+	 */
+	public double upperRowDot(int i, double[] x) {
+		double sum = 0.0;
+		for (int j = i; j < n; j++)
+			sum += x[j] * get(i, j);
+		return sum;
+	}
+
+	/**
+	 * @return the sum of (a_ij + a_ji) * x[j] over every j != i.
+	 */
+	public double symRowDot(int i, double[] x) {
+		double sum = 0.0;
+		for (int j = 0; j < n; j++) {
+			if (i != j)
+				sum += x[j] * sym(i, j);
+		}
+		return sum;
+	}
+
+	/**
+	 * @return the smallest coupling a_ij + a_ji over j != i (0 when n = 1).
+	 */
+	public double minSym(int i) {
+		if (n < 2)
+			return 0.0;
+		double m = Double.POSITIVE_INFINITY;
+		for (int j = 0; j < n; j++) {
+			if (j != i && sym(i, j) < m)
+				m = sym(i, j);
+		}
+		return m;
+	}
+
+	/**
+	 * {@link #minSym(int)} of every row, computed on the first call (O(n^2) on
+	 * the dense layouts) and then shared by every caller, e.g. the solvers
+	 * and workers of one instance. The array must not be modified.
+	 */
+	public double[] minSyms() {
+		double[] m = minSyms;
+		if (m == null) {
+			synchronized (this) {
+				m = minSyms;
+				if (m == null) {
+					m = new double[n];
+					for (int i = 0; i < n; i++)
+						m[i] = minSym(i);
+					minSyms = m;
+				}
+			}
+		}
+		return m;
+	}
+
+	/**
+	 * Collects the coefficients of the upper triangle and builds the matrix in
+	 * the layout that suits their density. Nonzero off-diagonal coefficients
+	 * are buffered as (i, j, a_ij) triplets; as soon as more than
+	 * {@link #SPARSE_MAX_DENSITY} of the cells seen so far (after the first
+	 * {@link #DECISION_CELLS}, or at the end) are nonzero, the buffer is
+	 * replayed into a dense layout (see {@link #DENSE_MAX_N}) and the
+	 * remaining coefficients go there directly, so the buffer never grows past
+	 * a fraction of that matrix. Otherwise {@link #build()} returns a {@link SparseSymmetricMatrix}.
+	 * Each cell is expected to be set at most once.
+	 */
+	public static final class Builder {
+
+		/**
+		 * Cells to see before the density is trusted enough to give up the
+		 * sparse layout.
+		 */
+		static final long DECISION_CELLS = 1L << 20;
+
+		private final int n;
+		private final long cells;
+		private long seen = 0;
+
+		private CoefficientMatrix target;
+
+		private final double[] diag;
+		private int[] ri = new int[16], ci = new int[16];
+		private double[] v = new double[16];
+		private int nnz = 0;
+
+		private Builder(int n) {
+			this.n = n;
+			this.cells = (long) n * (n + 1) / 2;
+			if (SPARSE_MAX_DENSITY <= 0.0) {
+				target = allocate(n);
+				diag = null;
+			} else {
+				diag = new double[n];
+			}
+		}
+
+		/**
+		 * Sets coefficient a_ij of the upper triangle (j >= i).
+		 */
+		public void set(int i, int j, double value) {
+			if (target != null) {
+				write(i, j, value);
+				return;
+			}
+			seen++;
+			if (i == j) {
+				diag[i] = value;
+				return;
+			}
+			if (value == 0.0)
+				return;
+			if (nnz == v.length) {
+				int len = 2 * v.length;
+				ri = Arrays.copyOf(ri, len);
+				ci = Arrays.copyOf(ci, len);
+				v = Arrays.copyOf(v, len);
+			}
+			ri[nnz] = i;
+			ci[nnz] = j;
+			v[nnz++] = value;
+			if (seen >= Math.min(cells, DECISION_CELLS) && nnz > SPARSE_MAX_DENSITY * seen)
+				densify();
+		}
+
+		/**
+		 * Accounts for cells known to be zero without setting them one by one
+		 * (e.g., when the coefficients come from a sparse listing), so that the
+		 * density seen by the builder stays that of the whole triangle.
+		 */
+		public void skipZeros(long count) {
+			if (target == null)
+				seen += count;
+		}
+
+		private void densify() {
+			target = allocate(n);
+			for (int i = 0; i < n; i++)
+				write(i, i, diag[i]);
+			for (int k = 0; k < nnz; k++)
+				write(ri[k], ci[k], v[k]);
+			ri = ci = null;
+			v = null;
+		}
+
+		/**
+		 * Writes a_ij into the dense target, the only layouts with a (package
+		 * private) write method.
+		 */
+		private void write(int i, int j, double value) {
+			if (target instanceof DenseSymmetricMatrix)
+				((DenseSymmetricMatrix) target).set(i, j, value);
+			else
+				((PackedTriangularMatrix) target).set(i, j, value);
+		}
+
+		/**
+		 * @return the matrix; the builder must not be used afterwards.
+		 */
+		public CoefficientMatrix build() {
+			if (target == null && nnz > SPARSE_MAX_DENSITY * Math.max(1L, seen))
+				densify();
+			if (target != null)
+				return target;
+			return new SparseSymmetricMatrix(n, diag, ri, ci, v, nnz);
+		}
+
+	}
+
+}
@@ -0,0 +1,71 @@
+package problems;
+
+/**
+ * {@link CoefficientMatrix} stored as a dense symmetric row-major array of
+ * n*n doubles: cell (i,j) holds a_ij + a_ji for i != j and a_ii on the
+ * diagonal. Every coupling of a variable is one contiguous row, so row scans
+ * are sequential reads the JIT can vectorize.
+ */
+public class DenseSymmetricMatrix extends CoefficientMatrix {
+
+	private final double[] s;
+
+	private final RowKernel kernel = RowKernel.get();
+
+	public DenseSymmetricMatrix(int n) {
+		super(n);
+		if ((long) n * n > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("n = " + n + " is too large for the dense layout");
+		s = new double[n * n];
+	}
+
+	/**
+	 * Sets coefficient a_ij of the upper triangle (j >= i); only
+	 * {@link CoefficientMatrix.Builder} writes.
+	 */
+	void set(int i, int j, double value) {
+		s[i * n + j] = value;
+		s[j * n + i] = value;
+	}
+
+	@Override
+	public double get(int i, int j) {
+		return (i <= j) ? s[i * n + j] : 0.0;
+	}
+
+	@Override
+	public double diag(int i) {
+		return s[i * n + i];
+	}
+
+	@Override
+	public double sym(int i, int j) {
+		return s[i * n + j];
+	}
+
+	@Override
+	public long memoryBytes() {
+		return 8L * s.length;
+	}
+
+	@Override
+	public void addRowTo(int i, double scale, double[] w) {
+		final int base = i * n;
+		final double wi = w[i];
+		for (int j = 0; j < n; j++)
+			w[j] += scale * s[base + j];
+		w[i] = wi;
+	}
+
+	@Override
+	public double upperRowDot(int i, double[] x) {
+		return kernel.dot(s, i * n + i, x, i, n - i);
+	}
+
+	@Override
+	public double symRowDot(int i, double[] x) {
+		final int base = i * n;
+		return kernel.dot(s, base, x, 0, i) + kernel.dot(s, base + i + 1, x, i + 1, n - i - 1);
+	}
+
+}
@@ -0,0 +1,243 @@
+package problems;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Whitespace-separated number reader for instance files, working on the raw
+ * bytes of a {@link FileChannel} instead of lines and Strings. Integers and
+ * plain decimals (optionally with an exponent) are converted directly from the
+ * bytes; only unusual spellings fall back to {@link Double#parseDouble}.
+ *
+ * The tokenizer also tells whether a line break was crossed before the next
+ * token, so that readers can keep validating the line structure of their
+ * format.
+ */
+public final class InstanceTokenizer implements Closeable {
+
+	private static final double[] POW10 = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12,
+			1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer;
+	private final byte[] bytes;
+	private int pos, limit;
+	private boolean eof;
+
+	/**
+	 * Current token, copied out of {@link #bytes} so that tokens may span two
+	 * reads.
+	 */
+	private byte[] token = new byte[64];
+	private int tokenLength;
+
+	/**
+	 * Whether a line break was skipped since the last token was consumed.
+	 */
+	private boolean newline = true;
+	private int line = 1;
+
+	public InstanceTokenizer(Path file) throws IOException {
+		channel = FileChannel.open(file, StandardOpenOption.READ);
+		buffer = ByteBuffer.allocate(1 << 16);
+		bytes = buffer.array();
+	}
+
+	private boolean fill() throws IOException {
+		if (eof)
+			return false;
+		buffer.clear();
+		int r;
+		do {
+			r = channel.read(buffer);
+		} while (r == 0);
+		if (r < 0) {
+			eof = true;
+			pos = limit = 0;
+			return false;
+		}
+		pos = 0;
+		limit = buffer.position();
+		return true;
+	}
+
+	/**
+	 * Skips whitespace up to the next token.
+	 *
+	 * @return false at the end of the input.
+	 */
+	private boolean skipSpace() throws IOException {
+		while (true) {
+			if (pos == limit && !fill())
+				return false;
+			byte b = bytes[pos];
+			if (b == '\n') {
+				newline = true;
+				line++;
+			} else if (b > ' ') {
+				return true;
+			}
+			pos++;
+		}
+	}
+
+	/**
+	 * @return whether there is another token.
+	 */
+	public boolean hasNext() throws IOException {
+		return skipSpace();
+	}
+
+	/**
+	 * @return whether the next token starts a new line (true at the start of
+	 *         the input and at its end).
+	 */
+	public boolean atLineStart() throws IOException {
+		return !skipSpace() || newline;
+	}
+
+	/**
+	 * @return the line of the next token (or of the last one read, at the
+	 *         end of the input), starting at 1.
+	 */
+	public int line() {
+		return line;
+	}
+
+	private void readToken(String ctx) throws IOException {
+		if (!skipSpace())
+			throw new IOException("Unexpected end of file while reading " + ctx);
+		newline = false;
+		tokenLength = 0;
+		while (true) {
+			if (pos == limit && !fill())
+				return;
+			byte b = bytes[pos];
+			if (b <= ' ')
+				return;
+			if (tokenLength == token.length)
+				token = Arrays.copyOf(token, 2 * token.length);
+			token[tokenLength++] = b;
+			pos++;
+		}
+	}
+
+	private String tokenString() {
+		return new String(token, 0, tokenLength, StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * Reads the next token as an int.
+	 *
+	 * @param ctx
+	 *            what is being read, for error messages.
+	 */
+	public int nextInt(String ctx) throws IOException {
+		readToken(ctx);
+		int k = 0;
+		boolean neg = false;
+		if (token[0] == '-' || token[0] == '+') {
+			neg = token[0] == '-';
+			k++;
+		}
+		if (k == tokenLength)
+			throw badNumber(ctx);
+		long v = 0;
+		for (; k < tokenLength; k++) {
+			int d = token[k] - '0';
+			if (d < 0 || d > 9)
+				throw badNumber(ctx);
+			v = v * 10 + d;
+			if (v > (long) Integer.MAX_VALUE + 1)
+				throw badNumber(ctx);
+		}
+		v = neg ? -v : v;
+		if (v > Integer.MAX_VALUE)
+			throw badNumber(ctx);
+		return (int) v;
+	}
+
+	/**
+	 * Reads the next token as a double.
+	 *
+	 * @param ctx
+	 *            what is being read, for error messages.
+	 */
+	public double nextDouble(String ctx) throws IOException {
+		readToken(ctx);
+		int k = 0;
+		boolean neg = false;
+		if (token[0] == '-' || token[0] == '+') {
+			neg = token[0] == '-';
+			k++;
+		}
+		long mantissa = 0;
+		int digits = 0, scale = 0;
+		boolean any = false;
+		for (; k < tokenLength && isDigit(token[k]); k++, any = true) {
+			if (digits < 18) {
+				mantissa = mantissa * 10 + (token[k] - '0');
+				if (mantissa != 0)
+					digits++;
+			} else {
+				scale++;
+			}
+		}
+		if (k < tokenLength && token[k] == '.') {
+			for (k++; k < tokenLength && isDigit(token[k]); k++, any = true) {
+				if (digits < 18) {
+					mantissa = mantissa * 10 + (token[k] - '0');
+					if (mantissa != 0)
+						digits++;
+					scale--;
+				}
+			}
+		}
+		if (any && k < tokenLength && (token[k] == 'e' || token[k] == 'E')) {
+			int e = 0, ek = k + 1;
+			boolean eneg = false;
+			if (ek < tokenLength && (token[ek] == '-' || token[ek] == '+')) {
+				eneg = token[ek] == '-';
+				ek++;
+			}
+			boolean edigits = false;
+			for (; ek < tokenLength && isDigit(token[ek]) && e < 10000; ek++, edigits = true)
+				e = e * 10 + (token[ek] - '0');
+			if (edigits) {
+				scale += eneg ? -e : e;
+				k = ek;
+			}
+		}
+		// fast path: the mantissa and the power of ten are both exact doubles,
+		// so one multiplication or division is correctly rounded
+		if (any && k == tokenLength && digits <= 15 && scale >= -22 && scale <= 22) {
+			double v = (scale >= 0) ? mantissa * POW10[scale] : mantissa / POW10[-scale];
+			return neg ? -v : v;
+		}
+		try {
+			return Double.parseDouble(tokenString());
+		} catch (NumberFormatException e) {
+			throw badNumber(ctx);
+		}
+	}
+
+	private static boolean isDigit(byte b) {
+		return b >= '0' && b <= '9';
+	}
+
+	private IOException badNumber(String ctx) {
+		return new IOException("Invalid number '" + tokenString() + "' in " + ctx + " (line " + line + ")");
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+}
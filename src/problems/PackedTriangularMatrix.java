@@ -0,0 +1,78 @@
+package problems;
+
+/**
+ * {@link CoefficientMatrix} stored as the packed upper triangle, row by row:
+ * n(n+1)/2 doubles, half the memory of a full matrix. Meant for dimensions
+ * where the dense layout does not fit comfortably in the heap.
+ */
+public class PackedTriangularMatrix extends CoefficientMatrix {
+
+	private final double[] p;
+
+	/**
+	 * rowStart[i] is the position of a_ii in {@link #p}
+	 */
+	private final int[] rowStart;
+
+	private final RowKernel kernel = RowKernel.get();
+
+	public PackedTriangularMatrix(int n) {
+		super(n);
+		long len = (long) n * (n + 1) / 2;
+		if (len > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("n = " + n + " is too large for the packed layout");
+		p = new double[(int) len];
+		rowStart = new int[n];
+		for (int i = 1; i < n; i++)
+			rowStart[i] = rowStart[i - 1] + (n - i + 1);
+	}
+
+	private int index(int i, int j) {
+		return rowStart[i] + (j - i);
+	}
+
+	/**
+	 * Sets coefficient a_ij of the upper triangle (j >= i); only
+	 * {@link CoefficientMatrix.Builder} writes.
+	 */
+	void set(int i, int j, double value) {
+		p[index(i, j)] = value;
+	}
+
+	@Override
+	public double get(int i, int j) {
+		return (i <= j) ? p[index(i, j)] : 0.0;
+	}
+
+	@Override
+	public double diag(int i) {
+		return p[rowStart[i]];
+	}
+
+	@Override
+	public double sym(int i, int j) {
+		return (i < j) ? p[index(i, j)] : p[index(j, i)];
+	}
+
+	@Override
+	public long memoryBytes() {
+		return 8L * p.length + 4L * rowStart.length;
+	}
+
+	@Override
+	public void addRowTo(int i, double scale, double[] w) {
+		// column i above the diagonal: a_ji, j < i
+		for (int j = 0; j < i; j++)
+			w[j] += scale * p[rowStart[j] + (i - j)];
+		// row i right of the diagonal: a_ij, j > i (contiguous)
+		final int base = rowStart[i] - i;
+		for (int j = i + 1; j < n; j++)
+			w[j] += scale * p[base + j];
+	}
+
+	@Override
+	public double upperRowDot(int i, double[] x) {
+		return kernel.dot(p, rowStart[i], x, i, n - i);
+	}
+
+}
@@ -0,0 +1,67 @@
+package problems;
+
+/**
+ * Dot product of a segment of a coefficient row with a segment of a primitive
+ * vector, the inner loop of every full evaluation x'.A.x. The plain loop
+ * below is the default; when the sources under src-vector are compiled in and
+ * the JVM is started with --add-modules jdk.incubator.vector, {@link #get()}
+ * returns a SIMD implementation built on the Vector API instead. The
+ * implementation is looked up by name, so this tree still compiles and runs
+ * without the incubator module. -Dqbf.vector=false forces the scalar loop.
+ */
+public abstract class RowKernel {
+
+	private static final String VECTOR_KERNEL = "problems.VectorRowKernel";
+
+	private static final RowKernel INSTANCE = load();
+
+	/**
+	 * @return the kernel used by the {@link CoefficientMatrix} layouts.
+	 */
+	public static RowKernel get() {
+		return INSTANCE;
+	}
+
+	private static RowKernel load() {
+		if (!Boolean.parseBoolean(System.getProperty("qbf.vector", "true")))
+			return new Scalar();
+		try {
+			return (RowKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError e) {
+			// kernel not compiled in, or module jdk.incubator.vector not
+			// resolved
+			return new Scalar();
+		}
+	}
+
+	/**
+	 * @return a short name of the implementation, for logs.
+	 */
+	public abstract String name();
+
+	/**
+	 * @return the sum of a[aOff + k] * x[xOff + k] for k = 0..len-1.
+	 */
+	public abstract double dot(double[] a, int aOff, double[] x, int xOff, int len);
+
+	/**
+	 * Plain loop, the fallback.
+	 */
+	static final class Scalar extends RowKernel {
+
+		@Override
+		public String name() {
+			return "scalar";
+		}
+
+		@Override
+		public double dot(double[] a, int aOff, double[] x, int xOff, int len) {
+			double sum = 0.0;
+			for (int k = 0; k < len; k++)
+				sum += a[aOff + k] * x[xOff + k];
+			return sum;
+		}
+
+	}
+
+}
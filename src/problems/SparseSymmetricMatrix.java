@@ -0,0 +1,207 @@
+package problems;
+
+/**
+ * {@link CoefficientMatrix} stored in compressed sparse rows: the diagonal in
+ * its own array, and for each variable the sorted list of its neighbours j
+ * (a_ij + a_ji != 0) with the coupling. Each coupling is stored in both rows,
+ * so a row lists every neighbour and {@link #addRowTo(int, double, double[])}
+ * costs O(degree) instead of O(n). Built by {@link CoefficientMatrix.Builder}
+ * for low-density instances; read-only afterwards.
+ */
+public class SparseSymmetricMatrix extends CoefficientMatrix {
+
+	private final double[] diag;
+
+	/**
+	 * Row i occupies positions rowStart[i] .. rowStart[i+1]-1 of
+	 * {@link #col} and {@link #val}, sorted by column.
+	 */
+	private final int[] rowStart;
+	private final int[] col;
+	private final double[] val;
+
+	/**
+	 * Position in row i of its first neighbour j > i.
+	 */
+	private final int[] upperStart;
+
+	/**
+	 * Builds the matrix from nnz off-diagonal triplets (ri[k], ci[k], v[k])
+	 * of the upper triangle, each cell at most once.
+	 */
+	SparseSymmetricMatrix(int n, double[] diag, int[] ri, int[] ci, double[] v, int nnz) {
+		super(n);
+		if (2L * nnz > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException(nnz + " couplings are too many for the sparse layout");
+		this.diag = diag;
+		rowStart = new int[n + 1];
+		for (int k = 0; k < nnz; k++) {
+			rowStart[ri[k] + 1]++;
+			rowStart[ci[k] + 1]++;
+		}
+		for (int i = 0; i < n; i++)
+			rowStart[i + 1] += rowStart[i];
+		col = new int[2 * nnz];
+		val = new double[2 * nnz];
+		int[] fill = new int[n];
+		boolean sorted = true;
+		for (int k = 0; k < nnz; k++) {
+			sorted &= put(ri[k], ci[k], v[k], fill);
+			sorted &= put(ci[k], ri[k], v[k], fill);
+		}
+		if (!sorted) {
+			for (int i = 0; i < n; i++)
+				sortRow(rowStart[i], rowStart[i + 1]);
+		}
+		upperStart = new int[n];
+		for (int i = 0; i < n; i++) {
+			int p = rowStart[i];
+			while (p < rowStart[i + 1] && col[p] < i)
+				p++;
+			upperStart[i] = p;
+		}
+	}
+
+	/**
+	 * Appends (j, value) to row i; returns false if it breaks the column order.
+	 */
+	private boolean put(int i, int j, double value, int[] fill) {
+		int p = rowStart[i] + fill[i]++;
+		col[p] = j;
+		val[p] = value;
+		return p == rowStart[i] || col[p - 1] < j;
+	}
+
+	private void sortRow(int from, int to) {
+		// insertion sort: rows are short, and only out-of-order input gets here
+		for (int p = from + 1; p < to; p++) {
+			int c = col[p];
+			double x = val[p];
+			int q = p - 1;
+			while (q >= from && col[q] > c) {
+				col[q + 1] = col[q];
+				val[q + 1] = val[q];
+				q--;
+			}
+			col[q + 1] = c;
+			val[q + 1] = x;
+		}
+	}
+
+	/**
+	 * @return the position of column j in row i, or -1.
+	 */
+	private int find(int i, int j) {
+		int lo = rowStart[i], hi = rowStart[i + 1] - 1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			int c = col[mid];
+			if (c < j)
+				lo = mid + 1;
+			else if (c > j)
+				hi = mid - 1;
+			else
+				return mid;
+		}
+		return -1;
+	}
+
+	/**
+	 * @return the number of neighbours of variable i.
+	 */
+	public int degree(int i) {
+		return rowStart[i + 1] - rowStart[i];
+	}
+
+	/**
+	 * @return the number of stored off-diagonal couplings (each counted once).
+	 */
+	public long nonZeros() {
+		return col.length / 2;
+	}
+
+	/**
+	 * Copies the couplings of row i to the right of the diagonal (j > i, in
+	 * increasing order) into cols and vals.
+	 *
+	 * @return how many were copied.
+	 */
+	public int upperRow(int i, int[] cols, double[] vals) {
+		int len = rowStart[i + 1] - upperStart[i];
+		System.arraycopy(col, upperStart[i], cols, 0, len);
+		System.arraycopy(val, upperStart[i], vals, 0, len);
+		return len;
+	}
+
+	/**
+	 * Copies every coupling of row i (j != i, in increasing order of j) into
+	 * cols and vals.
+	 *
+	 * @return how many were copied, i.e. {@link #degree(int)}.
+	 */
+	public int row(int i, int[] cols, double[] vals) {
+		int len = rowStart[i + 1] - rowStart[i];
+		System.arraycopy(col, rowStart[i], cols, 0, len);
+		System.arraycopy(val, rowStart[i], vals, 0, len);
+		return len;
+	}
+
+	@Override
+	public double get(int i, int j) {
+		if (i > j)
+			return 0.0;
+		return (i == j) ? diag[i] : sym(i, j);
+	}
+
+	@Override
+	public double diag(int i) {
+		return diag[i];
+	}
+
+	@Override
+	public double sym(int i, int j) {
+		int p = find(i, j);
+		return (p < 0) ? 0.0 : val[p];
+	}
+
+	@Override
+	public long memoryBytes() {
+		return 12L * col.length + 8L * diag.length + 4L * (rowStart.length + upperStart.length);
+	}
+
+	@Override
+	public void addRowTo(int i, double scale, double[] w) {
+		for (int p = rowStart[i], end = rowStart[i + 1]; p < end; p++)
+			w[col[p]] += scale * val[p];
+	}
+
+	@Override
+	public double upperRowDot(int i, double[] x) {
+		double sum = diag[i] * x[i];
+		for (int p = upperStart[i], end = rowStart[i + 1]; p < end; p++)
+			sum += x[col[p]] * val[p];
+		return sum;
+	}
+
+	@Override
+	public double symRowDot(int i, double[] x) {
+		double sum = 0.0;
+		for (int p = rowStart[i], end = rowStart[i + 1]; p < end; p++)
+			sum += x[col[p]] * val[p];
+		return sum;
+	}
+
+	@Override
+	public double minSym(int i) {
+		if (n < 2)
+			return 0.0;
+		// couplings not stored are zero
+		double m = (degree(i) < n - 1) ? 0.0 : Double.POSITIVE_INFINITY;
+		for (int p = rowStart[i], end = rowStart[i + 1]; p < end; p++) {
+			if (val[p] < m)
+				m = val[p];
+		}
+		return m;
+	}
+
+}
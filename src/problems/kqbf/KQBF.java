@@ -0,0 +1,314 @@
+package problems.kqbf;
+
+import java.io.IOException;
+import java.util.Arrays;
+import problems.BinaryEvaluator;
+import problems.CoefficientMatrix;
+import solutions.BitVector;
+import solutions.IntSolution;
+import solutions.Solution;
+
+/**
+ * KQBF = Knapsack Quadratic Binary Function:
+ * Maximiza f(x) = x' A x, sujeito a sum_i w_i x_i <= W.
+ *
+ * Segue o mesmo desenho do {@link problems.scqbf.SCQBF}: retorna custo = -f(x)
+ * (minimização) e mantém estado incremental (x, w, f e a carga usada)
+ * vinculado a uma Solution por sessão. {@link #bind(Solution)} reconstrói o
+ * estado uma vez e os commits ({@link #commitAdd}, {@link #commitDrop},
+ * {@link #commitSwap}) o mantêm em O(n) por movimento (O(grau) com matriz
+ * esparsa). A capacidade residual W - carga é atualizada em O(1) por
+ * movimento, então a viabilidade de inserção e de troca também é O(1).
+ *
+ * Os dados (n, W, pesos, A) ficam numa {@link KQBFInstance} imutável e
+ * compartilhável; este objeto guarda só o estado da sessão.
+ */
+public class KQBF implements BinaryEvaluator {
+
+    public final KQBFInstance data;      // instância (só leitura, compartilhável)
+    public final int n;                  // = data.n
+    public final double capacity;        // = data.capacity
+    public final CoefficientMatrix A;    // = data.A
+
+    /**
+     * Se true, cada commit confere o estado incremental contra uma reconstrução
+     * completa (lança IllegalStateException na divergência). Ativável com -Dkqbf.debug=true.
+     */
+    public static boolean debug = Boolean.getBoolean("kqbf.debug");
+
+    private final double[] weight;  // cópia dos pesos (acesso direto no laço quente)
+
+    // Estado incremental associado a uma Solution corrente
+    BitVector x;     // seleção atual (um bit por item)
+    double[] w;      // w[i] = sum_{j != i} x[j]*(A[i][j] + A[j][i]), mantido para todo i
+    double f;        // valor atual f(x) = x' A x
+    double load;     // sum_i w_i x_i
+
+    // Sessão: solução à qual o estado está vinculado e seu tamanho no último sync
+    private Solution<Integer> bound;
+    private IntSolution boundInt;   // bound, quando é IntSolution (caminho sem boxing)
+    private int boundSize;
+
+    /**
+     * Lê a instância e abre uma sessão sobre ela. Para vários avaliadores da
+     * mesma instância, leia uma vez com {@link KQBFInstance#load(String)} e use
+     * {@link #KQBF(KQBFInstance)}.
+     */
+    public KQBF(String filename) throws IOException {
+        this(KQBFInstance.load(filename));
+    }
+
+    /**
+     * Nova sessão (estado zerado) sobre data, que é só lida: várias sessões,
+     * inclusive em threads diferentes, podem compartilhar a mesma instância.
+     */
+    public KQBF(KQBFInstance data) {
+        this.data = data;
+        n = data.n;
+        capacity = data.capacity;
+        A = data.A;
+        weight = new double[n];
+        for (int i = 0; i < n; i++) weight[i] = data.weight(i);
+        // Estado
+        x = new BitVector(n);
+        w = new double[n];
+        f = 0.0;
+        load = 0.0;
+    }
+
+    /** Nova sessão sobre a mesma instância de other (ver {@link #KQBF(KQBFInstance)}). */
+    public KQBF(KQBF other) {
+        this(other.data);
+    }
+
+    @Override
+    public Integer getDomainSize() {
+        return n;
+    }
+
+    /* ---------- Utilidades internas ---------- */
+
+    private void resetState() {
+        x.clear();
+        Arrays.fill(w, 0.0);
+        f = 0.0;
+        load = 0.0;
+    }
+
+    private void rebuildFromSolution(Solution<Integer> sol) {
+        resetState();
+        if (sol instanceof IntSolution) {
+            IntSolution s = (IntSolution) sol;
+            for (int k = 0; k < s.size(); k++) applyAdd(s.getInt(k));
+        } else {
+            for (int e : sol) applyAdd(e);
+        }
+    }
+
+    private void applyAdd(int i) {
+        if (x.get(i)) return;
+        f += A.diag(i) + w[i];
+        A.addRowTo(i, 1.0, w);
+        x.set(i);
+        load += weight[i];
+    }
+
+    private void applyDrop(int i) {
+        if (!x.get(i)) return;
+        f -= A.diag(i) + w[i];
+        A.addRowTo(i, -1.0, w);
+        x.clear(i);
+        load -= weight[i];
+    }
+
+    /** Garante que o estado corresponde a sol (reconstrói só se necessário). */
+    private void sync(Solution<Integer> sol) {
+        if (sol != bound || sol.size() != boundSize) bind(sol);
+    }
+
+    /**
+     * Confere x, w, f e carga contra uma reconstrução completa a partir de
+     * {@link #bound}, percorrendo só os bits ligados de x0 (O(n·|S|)).
+     */
+    private void verifyState() {
+        BitVector x0 = new BitVector(n);
+        double f0 = 0.0, load0 = 0.0;
+        for (int e : bound) x0.set(e);
+        if (!x0.equals(x))
+            throw new IllegalStateException("KQBF: x dessincronizado");
+        for (int i = 0; i < n; i++) {
+            double wi = 0.0;
+            for (int j = x0.nextSetBit(0); j >= 0; j = x0.nextSetBit(j + 1)) if (j != i) wi += A.sym(i, j);
+            if (Math.abs(wi - w[i]) > 1e-6 * (1.0 + Math.abs(wi)))
+                throw new IllegalStateException("KQBF: w[" + i + "] = " + w[i] + ", esperado " + wi);
+            if (x0.get(i)) {
+                f0 += A.diag(i) + 0.5 * wi;
+                load0 += weight[i];
+            }
+        }
+        if (Math.abs(f0 - f) > 1e-6 * (1.0 + Math.abs(f0)))
+            throw new IllegalStateException("KQBF: f = " + f + ", esperado " + f0);
+        if (Math.abs(load0 - load) > 1e-6 * (1.0 + load0))
+            throw new IllegalStateException("KQBF: carga = " + load + ", esperado " + load0);
+    }
+
+    /* ---------- Sessão incremental ---------- */
+
+    /**
+     * Vincula o estado incremental a sol, reconstruindo-o por completo.
+     * A partir daqui sol deve ser alterada apenas pelos commits.
+     */
+    public void bind(Solution<Integer> sol) {
+        rebuildFromSolution(sol);
+        bound = sol;
+        boundInt = (sol instanceof IntSolution) ? (IntSolution) sol : null;
+        boundSize = sol.size();
+        sol.cost = -f;
+    }
+
+    /** Peso da variável i. */
+    public double weight(int i) {
+        return weight[i];
+    }
+
+    /** Capacidade ainda livre na solução vinculada (W - carga). */
+    public double residual() {
+        return capacity - load;
+    }
+
+    /** Se i (fora) cabe na solução vinculada. */
+    public boolean fits(int i) {
+        return weight[i] <= capacity - load;
+    }
+
+    /** Se trocar out (dentro) por in (fora) respeita a capacidade. */
+    public boolean swapFits(int in, int out) {
+        return weight[in] - weight[out] <= capacity - load;
+    }
+
+    /** Custo (–Δf) de inserir i na solução vinculada; +∞ se i não cabe, 0 se já está dentro. */
+    public double deltaAdd(int i) {
+        if (x.get(i)) return 0.0;
+        if (!fits(i)) return Double.POSITIVE_INFINITY;
+        return -(A.diag(i) + w[i]);
+    }
+
+    /**
+     * Custo (–Δf) de inserir i sem checar a capacidade (para tabelas de troca;
+     * a viabilidade vem de {@link #swapFits}).
+     */
+    public double deltaAddUnchecked(int i) {
+        if (x.get(i)) return 0.0;
+        return -(A.diag(i) + w[i]);
+    }
+
+    /** Custo (–Δf) de remover i da solução vinculada (sempre viável). */
+    public double deltaDrop(int i) {
+        if (!x.get(i)) return 0.0;
+        return A.diag(i) + w[i];
+    }
+
+    /** Custo (–Δf) de trocar out (dentro) por in (fora); +∞ se estoura a capacidade. */
+    public double deltaSwap(int in, int out) {
+        if (in == out) return 0.0;
+        if (!x.get(out) && !x.get(in)) return deltaAdd(in);
+        if (x.get(out) && x.get(in))  return deltaDrop(out);
+        if (!swapFits(in, out)) return Double.POSITIVE_INFINITY;
+
+        // Δf = add(in) + drop(out) − symA(in,out) (w[in] ainda conta out)
+        double add = A.diag(in) + w[in];
+        double drop = -(A.diag(out) + w[out]);
+        return -(add + drop - A.sym(in, out));
+    }
+
+    /** Insere i na solução vinculada, atualizando estado e custo. */
+    public void commitAdd(int i) {
+        applyAdd(i);
+        solAdd(i);
+        afterCommit();
+    }
+
+    /** Remove i da solução vinculada, atualizando estado e custo. */
+    public void commitDrop(int i) {
+        applyDrop(i);
+        solRemove(i);
+        afterCommit();
+    }
+
+    /** Troca out (dentro) por in (fora) na solução vinculada. */
+    public void commitSwap(int in, int out) {
+        applyDrop(out);
+        solRemove(out);
+        applyAdd(in);
+        solAdd(in);
+        afterCommit();
+    }
+
+    private void solAdd(int i) {
+        if (boundInt != null) boundInt.addInt(i);
+        else bound.add(i);
+    }
+
+    private void solRemove(int i) {
+        if (boundInt != null) boundInt.removeInt(i);
+        else bound.remove(Integer.valueOf(i));
+    }
+
+    private void afterCommit() {
+        boundSize = bound.size();
+        bound.cost = -f;
+        if (debug) verifyState();
+    }
+
+    /* ---------- Métodos do Evaluator ---------- */
+
+    @Override
+    public Double evaluate(Solution<Integer> sol) {
+        bind(sol);
+        return sol.cost;
+    }
+
+    @Override
+    public Double evaluateInsertionCost(Integer elem, Solution<Integer> sol) {
+        sync(sol);
+        return deltaAdd(elem);
+    }
+
+    @Override
+    public Double evaluateRemovalCost(Integer elem, Solution<Integer> sol) {
+        sync(sol);
+        return deltaDrop(elem);
+    }
+
+    @Override
+    public Double evaluateExchangeCost(Integer elemIn, Integer elemOut, Solution<Integer> sol) {
+        sync(sol);
+        return deltaSwap(elemIn, elemOut);
+    }
+
+    /* ---------- Versões primitivas (BinaryEvaluator) ---------- */
+
+    @Override
+    public double evaluate(IntSolution sol) {
+        bind(sol);
+        return sol.cost;
+    }
+
+    @Override
+    public double evaluateInsertionCost(int elem, IntSolution sol) {
+        sync(sol);
+        return deltaAdd(elem);
+    }
+
+    @Override
+    public double evaluateRemovalCost(int elem, IntSolution sol) {
+        sync(sol);
+        return deltaDrop(elem);
+    }
+
+    @Override
+    public double evaluateExchangeCost(int elemIn, int elemOut, IntSolution sol) {
+        sync(sol);
+        return deltaSwap(elemIn, elemOut);
+    }
+}
@@ -0,0 +1,100 @@
+package problems.kqbf;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import problems.CoefficientMatrix;
+import problems.InstanceTokenizer;
+
+/**
+ * Dados de uma instância KQBF (QBF com restrição de mochila): n, a capacidade
+ * W, os pesos w_i e a matriz A. Imutável depois de lida, e portanto segura
+ * para ser compartilhada entre threads, como a
+ * {@link problems.scqbf.SCQBFInstance}: cada avaliador ({@link KQBF}) só
+ * guarda o seu estado incremental.
+ *
+ * Formato do arquivo (ver instances/kqbf/README):
+ * n
+ * W
+ * w_1 w_2 ... w_n
+ * A[0,0..n-1]
+ * A[1,1..n-1]
+ * ...
+ * A[n-1,n-1]
+ */
+public final class KQBFInstance {
+
+    public final int n;                  // número de variáveis
+    public final double capacity;        // W
+    private final double[] weights;      // w_i (>= 0)
+    public final CoefficientMatrix A;    // coeficientes (triangular superior no arquivo; ver CoefficientMatrix)
+
+    KQBFInstance(int n, double capacity, double[] weights, CoefficientMatrix A) {
+        this.n = n;
+        this.capacity = capacity;
+        this.weights = weights;
+        this.A = A;
+    }
+
+    /** Peso da variável i. */
+    public double weight(int i) {
+        return weights[i];
+    }
+
+    public static KQBFInstance load(String filename) throws IOException {
+        return load(Paths.get(filename));
+    }
+
+    public static KQBFInstance load(Path file) throws IOException {
+        return parse(file);
+    }
+
+    /** Memória aproximada ocupada pela instância (matriz + pesos), em bytes. */
+    public long memoryBytes() {
+        return A.memoryBytes() + 8L * n;
+    }
+
+    /**
+     * Lê o formato texto com o {@link InstanceTokenizer}, conferindo a
+     * estrutura de linhas: n e W cada um na sua, os n pesos numa linha, uma
+     * linha por A[i, i..n-1].
+     */
+    static KQBFInstance parse(Path file) throws IOException {
+        try (InstanceTokenizer tok = new InstanceTokenizer(file)) {
+            // n
+            int n = tok.nextInt("n");
+            if (n < 0) throw new IOException("n negativo: " + n);
+
+            // W
+            if (!tok.atLineStart())
+                throw new IOException("W deve vir na linha seguinte a n (linha " + tok.line() + ")");
+            double capacity = tok.nextDouble("W");
+            if (!(capacity >= 0)) throw new IOException("Capacidade inválida: " + capacity);
+
+            // pesos
+            double[] weights = new double[n];
+            for (int i = 0; i < n; i++) {
+                if (tok.atLineStart() != (i == 0))
+                    throw new IOException("Linha de pesos != n (linha " + tok.line() + ")");
+                weights[i] = tok.nextDouble("pesos");
+                if (!(weights[i] >= 0)) {
+                    throw new IOException("w_" + (i + 1) + " inválido: " + weights[i]);
+                }
+            }
+
+            // Matriz A (triangular superior no arquivo); o builder escolhe o formato
+            CoefficientMatrix.Builder ab = CoefficientMatrix.builder(n);
+            for (int i = 0; i < n; i++) {
+                for (int j = i; j < n; j++) {
+                    if (tok.atLineStart() != (j == i))
+                        throw new IOException("A[" + i + "]: esperado " + (n - i) + " valores, veio " + (j - i)
+                                + " (linha " + tok.line() + ")");
+                    ab.set(i, j, tok.nextDouble("A"));
+                }
+            }
+            if (!tok.atLineStart())
+                throw new IOException("A[" + (n - 1) + "]: mais de 1 valor (linha " + tok.line() + ")");
+            return new KQBFInstance(n, capacity, weights, ab.build());
+        }
+    }
+}
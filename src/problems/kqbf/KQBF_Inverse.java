@@ -0,0 +1,22 @@
+package problems.kqbf;
+
+import java.io.IOException;
+
+/**
+ * Mantém a mesma interface da QBF_Inverse: o KQBF já retorna custos = –f,
+ * então esta classe existe para manter o padrão de uso no solver.
+ */
+public class KQBF_Inverse extends KQBF {
+    public KQBF_Inverse(String filename) throws IOException {
+        super(filename);
+    }
+    /** Nova sessão sobre uma instância já carregada (ver {@link KQBF#KQBF(KQBFInstance)}). */
+    public KQBF_Inverse(KQBFInstance data) {
+        super(data);
+    }
+    /** Nova sessão sobre os dados já carregados de other (ver {@link KQBF#KQBF(KQBF)}). */
+    public KQBF_Inverse(KQBF other) {
+        super(other);
+    }
+    // Os métodos de KQBF já retornam custo = –f e –Δf, nada a sobrescrever.
+}
@@ -0,0 +1,334 @@
+package problems.kqbf.solvers;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import metaheuristics.grasp.AbstractGRASP;
+import metaheuristics.grasp.AsyncLog;
+import problems.SparseSymmetricMatrix;
+import problems.kqbf.KQBF;
+import problems.kqbf.KQBFInstance;
+import problems.kqbf.KQBF_Inverse;
+import solutions.IndexedIntSet;
+import solutions.IntSolution;
+import solutions.Solution;
+
+/**
+ * GRASP para o KQBF (QBF com restrição de mochila), no mesmo molde do
+ * GRASP_SCQBF: construção padrão do AbstractGRASP com a CL restrita aos
+ * candidatos que ainda cabem, e busca local first/best-improving sobre a
+ * sessão incremental do {@link KQBF} (add, drop e swap, todos com delta e
+ * viabilidade em O(1)).
+ */
+public class GRASP_KQBF extends AbstractGRASP<Integer> {
+
+    public enum LocalSearchType { FIRST_IMPROVING, BEST_IMPROVING }
+
+    // avaliador tipado: a busca local usa a sessão incremental (deltas + commits)
+    private final KQBF kqbf;
+
+    private final LocalSearchType lsType;
+
+    // maior peso da instância: com residual >= maxWeight tudo cabe e a CL não precisa de filtro
+    private final double maxWeight;
+
+    private long timeLimitNanos = Long.MAX_VALUE;
+
+    // buffer reutilizado para embaralhar os elementos da solução na busca local
+    private final int[] inside;
+
+    // tabelas de delta do passo best-improving (custos = –Δf), reaproveitadas
+    private final double[] addCost;   // por posição na CL (sem checar capacidade)
+    private final double[] dropCost;  // por posição em inside
+    // minSym[i] = min_{j != i} symA(i,j): limitante inferior do termo de correção da troca;
+    // calculado uma vez por matriz, no primeiro passo best-improving (FIRST nunca o lê)
+    private double[] minSym;
+    // matriz esparsa: a linha de in é espalhada em symRow (O(grau)); null nos formatos densos
+    private final double[] symRow;
+
+    // métricas (mesmas do GRASP_SCQBF)
+    public int iterationsRun = 0;     // iterações efetivamente executadas
+    public int bestIter = -1;         // iteração em que o melhor foi encontrado
+    public double bestTimeSec = 0.0;  // tempo (s) até o melhor
+
+    public void setTimeLimitSeconds(double seconds) {
+        this.timeLimitNanos = (long)(seconds * 1e9);
+    }
+    public long now() { return System.nanoTime(); }
+
+    /** Estourou o limite local (desde t0) ou o limite global de uma execução paralela? */
+    private boolean timeUp(long t0) {
+        return (now() - t0) > timeLimitNanos || sharedTimeExpired();
+    }
+
+    public GRASP_KQBF(Double alpha, Integer iterations, String filename, LocalSearchType lsType) throws IOException {
+        this(alpha, iterations, KQBFInstance.load(filename), lsType);
+    }
+
+    /**
+     * Usa uma instância já carregada, que é só lida: vários solvers podem
+     * receber a mesma, cada um com a sua sessão do avaliador.
+     */
+    public GRASP_KQBF(Double alpha, Integer iterations, KQBFInstance data, LocalSearchType lsType) {
+        this(alpha, iterations, new KQBF_Inverse(data), lsType);
+    }
+
+    /**
+     * Usa um avaliador já criado. O solver passa a ser dono do estado de
+     * objFunction (a sessão), então cada solver precisa do seu.
+     */
+    public GRASP_KQBF(Double alpha, Integer iterations, KQBF objFunction, LocalSearchType lsType) {
+        super(objFunction, alpha, iterations);
+        this.kqbf = (KQBF) ObjFunction;
+        this.lsType = lsType;
+        this.inside = new int[kqbf.n];
+        this.addCost = new double[kqbf.n];
+        this.dropCost = new double[kqbf.n];
+        double mw = 0.0;
+        for (int i = 0; i < kqbf.n; i++) mw = Math.max(mw, kqbf.weight(i));
+        this.maxWeight = mw;
+        this.symRow = (kqbf.A instanceof SparseSymmetricMatrix) ? new double[kqbf.n] : null;
+    }
+
+    /* ----------------------- AbstractGRASP overrides ----------------------- */
+
+    @Override
+    public List<Integer> makeCL() {
+        // CL = todos fora da solução; updateCL tira os que não cabem
+        return IndexedIntSet.full(kqbf.n);
+    }
+
+    @Override
+    public ArrayList<Integer> makeRCL() {
+        return new ArrayList<>();
+    }
+
+    @Override
+    public void updateCL() {
+        // Na construção a capacidade residual só diminui: quem deixou de caber
+        // sai da CL de vez. O AbstractGRASP já remove o inserido, então basta
+        // filtrar (e só quando o residual ficou abaixo do maior peso).
+        if (kqbf.residual() >= maxWeight) return;
+        IndexedIntSet cl = (IndexedIntSet) CL;
+        // de trás para frente: removeInt traz o último para a posição c, que já foi visto
+        for (int c = cl.size() - 1; c >= 0; c--) {
+            int i = cl.getInt(c);
+            if (!kqbf.fits(i)) cl.removeInt(i);
+        }
+    }
+
+    @Override
+    protected void insertIntoSolution(Integer elem, double deltaCost) {
+        // commit na sessão: atualiza w e a carga, mantendo os deltas dos demais em O(1)
+        kqbf.commitAdd(elem);
+    }
+
+    @Override
+    public Solution<Integer> createEmptySol() {
+        IntSolution s = new IntSolution(kqbf.n);
+        s.cost = 0.0; // custo = –f, solução vazia => f=0 => custo=0
+        return s;
+    }
+
+    @Override
+    public Solution<Integer> localSearch() {
+        final double EPS = 1e-12;
+        boolean improved;
+        long tStart = now();
+        IntSolution sol = (IntSolution) this.sol;
+        IndexedIntSet CL = (IndexedIntSet) this.CL;
+
+        // vincula o estado do avaliador a sol; daqui em diante só commits
+        kqbf.bind(sol);
+
+        // na busca local a CL é o complemento inteiro de sol: um elemento que não
+        // cabe sozinho pode entrar numa troca
+        CL.clear();
+        for (int i = 0; i < kqbf.n; i++) if (!sol.containsInt(i)) CL.addInt(i);
+
+        do {
+            if (timeUp(tStart)) break;
+
+            improved = false;
+
+            if (lsType == LocalSearchType.FIRST_IMPROVING) {
+                // 1) tentativas de inserção (deltaAdd já dá +∞ para quem não cabe)
+                shuffle(CL);
+                for (int c = 0; c < CL.size(); c++) {
+                    int candIn = CL.getInt(c);
+                    double dc = kqbf.deltaAdd(candIn);
+                    if (dc < -EPS) {
+                        kqbf.commitAdd(candIn);
+                        CL.removeInt(candIn);
+                        improved = true;
+                        break;
+                    }
+                }
+                if (!improved) {
+                    // 2) tentativas de remoção
+                    int m = sol.copyElements(inside);
+                    shuffle(inside, m);
+                    for (int k = 0; k < m; k++) {
+                        int candOut = inside[k];
+                        double dc = kqbf.deltaDrop(candOut);
+                        if (dc < -EPS) {
+                            kqbf.commitDrop(candOut);
+                            CL.addInt(candOut);
+                            improved = true;
+                            break;
+                        }
+                    }
+                }
+                if (!improved) {
+                    // 3) trocas
+                    int m = sol.copyElements(inside);
+                    shuffle(inside, m);
+                    shuffle(CL);
+                    outer:
+                    for (int c = 0; c < CL.size(); c++) {
+                        int candIn = CL.getInt(c);
+                        for (int k = 0; k < m; k++) {
+                            int candOut = inside[k];
+                            double dc = kqbf.deltaSwap(candIn, candOut);
+                            if (dc < -EPS) {
+                                kqbf.commitSwap(candIn, candOut);
+                                CL.removeInt(candIn);
+                                CL.addInt(candOut);
+                                improved = true;
+                                break outer;
+                            }
+                        }
+                    }
+                }
+            } else {
+                improved = bestImprovingStep(sol, CL, EPS);
+            }
+        } while (improved && !timeUp(tStart));
+
+        return sol;
+    }
+
+    /**
+     * Um passo best-improving sobre tabelas de delta, como no GRASP_SCQBF: a
+     * troca sai de addCost[in] + dropCost[out] + symA(in,out), e a capacidade
+     * só é checada (em O(1)) para os pares que melhoram o melhor atual. Ins cujo
+     * limitante addCost + min(dropCost) + minSym não bate o melhor são pulados.
+     *
+     * @return true se aplicou um movimento de melhora.
+     */
+    private boolean bestImprovingStep(IntSolution sol, IndexedIntSet CL, double eps) {
+        if (minSym == null) minSym = kqbf.A.minSyms();
+        double bestDc = -eps;
+        int bestIn = -1, bestOut = -1;
+
+        // inserções: todos entram na tabela (a troca pode abrir espaço);
+        // inserção pura só para quem cabe
+        int nc = CL.size();
+        for (int c = 0; c < nc; c++) {
+            int candIn = CL.getInt(c);
+            double dc = kqbf.deltaAddUnchecked(candIn);
+            addCost[c] = dc;
+            if (dc < bestDc && kqbf.fits(candIn)) {
+                bestDc = dc; bestIn = candIn; bestOut = -1;
+            }
+        }
+        // remoções (sempre viáveis)
+        int m = 0;
+        double minDrop = Double.POSITIVE_INFINITY;
+        for (int k = 0; k < sol.size(); k++) {
+            int candOut = sol.getInt(k);
+            double dc = kqbf.deltaDrop(candOut);
+            inside[m] = candOut;
+            dropCost[m++] = dc;
+            if (dc < minDrop) minDrop = dc;
+            if (dc < bestDc) {
+                bestDc = dc; bestIn = -1; bestOut = candOut;
+            }
+        }
+        // trocas
+        for (int c = 0; c < nc && m > 0; c++) {
+            int candIn = CL.getInt(c);
+            double a = addCost[c];
+            if (a + minDrop + minSym[candIn] >= bestDc) continue;
+            if (symRow != null) {
+                kqbf.A.addRowTo(candIn, 1.0, symRow);
+                for (int k = 0; k < m; k++) {
+                    double dc = a + dropCost[k] + symRow[inside[k]];
+                    if (dc < bestDc && kqbf.swapFits(candIn, inside[k])) {
+                        bestDc = dc; bestIn = candIn; bestOut = inside[k];
+                    }
+                }
+                kqbf.A.addRowTo(candIn, -1.0, symRow); // volta a zero (uma parcela por posição)
+                continue;
+            }
+            for (int k = 0; k < m; k++) {
+                double dc = a + dropCost[k] + kqbf.A.sym(candIn, inside[k]);
+                if (dc < bestDc && kqbf.swapFits(candIn, inside[k])) {
+                    bestDc = dc; bestIn = candIn; bestOut = inside[k];
+                }
+            }
+        }
+
+        if (bestIn < 0 && bestOut < 0) return false;
+        if (bestIn >= 0 && bestOut >= 0) {
+            kqbf.commitSwap(bestIn, bestOut);
+        } else if (bestOut >= 0) {
+            kqbf.commitDrop(bestOut);
+        } else {
+            kqbf.commitAdd(bestIn);
+        }
+        if (bestIn >= 0) CL.removeInt(bestIn);
+        if (bestOut >= 0) CL.addInt(bestOut);
+        return true;
+    }
+
+    /** Copia sol para bestSol reaproveitando o buffer (sem alocação). */
+    private void saveBest() {
+        ((IntSolution) bestSol).copyFrom((IntSolution) sol);
+    }
+
+    @Override
+    public Solution<Integer> solve() {
+        long t0 = System.nanoTime();
+        bestSol = createEmptySol();
+        bestCost = Double.POSITIVE_INFINITY;
+        iterationsRun = 0;
+        bestIter = -1;
+        bestTimeSec = 0.0;
+
+        for (int it = 0; it < iterations; it++) {
+            if (timeUp(t0)) break;
+            constructiveHeuristic();
+            localSearch();
+            iterationsRun++;
+            if (bestSol.cost > sol.cost) {
+                saveBest();
+                bestCost = bestSol.cost;
+                bestIter = iterationsRun;
+                bestTimeSec = (System.nanoTime() - t0) / 1e9;
+                publish(bestIter);
+                reportBest(it, null);
+            }
+        }
+        return bestSol;
+    }
+
+    /**
+     * Teste rápido: java problems.kqbf.solvers.GRASP_KQBF [instância] [iterações] [FIRST_IMPROVING|BEST_IMPROVING]
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String inst = (args.length > 0) ? args[0] : "instances/kqbf/kqbf040";
+        int iterations = (args.length > 1) ? Integer.parseInt(args[1]) : 1000;
+        LocalSearchType ls = (args.length > 2) ? LocalSearchType.valueOf(args[2]) : LocalSearchType.BEST_IMPROVING;
+
+        long startTime = System.currentTimeMillis();
+        GRASP_KQBF grasp = new GRASP_KQBF(0.05, iterations, inst, ls);
+        Solution<Integer> bestSol = grasp.solve();
+        // pela mesma fila das linhas de progresso, para sair depois delas
+        AsyncLog console = AsyncLog.console();
+        console.put("maxVal = " + bestSol);
+        long endTime = System.currentTimeMillis();
+        console.put("Time = " + (endTime - startTime) / 1000.0 + " seg");
+        console.close();
+    }
+}
@@ -1,12 +1,12 @@
 package problems.qbf;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.Reader;
-import java.io.StreamTokenizer;
+import java.nio.file.Paths;
 import java.util.Arrays;
-import problems.Evaluator;
+import problems.BinaryEvaluator;
+import problems.CoefficientMatrix;
+import problems.InstanceTokenizer;
+import solutions.IntSolution;
 import solutions.Solution;
 
 /**
@@ -23,7 +23,7 @@ import solutions.Solution;
  * @author ccavellucci, fusberti
  *
  */
-public class QBF implements Evaluator<Integer> {
+public class QBF implements BinaryEvaluator {
 
 	/**
 	 * Dimension of the domain.
@@ -31,14 +31,17 @@ public class QBF implements Evaluator<Integer> {
 	public final Integer size;
 
 	/**
-	 * The array of numbers representing the domain.
+	 * The array of numbers representing the domain (0.0 or 1.0), primitive so
+	 * that the rows of {@link #A} can be multiplied by it with
+	 * {@link problems.RowKernel}.
 	 */
-	public final Double[] variables;
+	public final double[] variables;
 
 	/**
-	 * The matrix A of coefficients for the QBF f(x) = x'.A.x
+	 * The matrix A of coefficients for the QBF f(x) = x'.A.x (upper
+	 * triangular, see {@link CoefficientMatrix}).
 	 */
-	public Double[][] A;
+	public CoefficientMatrix A;
 
 	/**
 	 * The constructor for QuadracticBinaryFunction class. The filename of the
@@ -73,6 +76,21 @@ public class QBF implements Evaluator<Integer> {
 
 	}
 
+	/**
+	 * Primitive version of {@link #setVariables(Solution)}.
+	 * 
+	 * @param sol
+	 *            the solution which will be evaluated.
+	 */
+	public void setVariables(IntSolution sol) {
+
+		resetVariables();
+		for (int k = 0; k < sol.size(); k++) {
+			variables[sol.getInt(k)] = 1.0;
+		}
+
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -100,24 +118,35 @@ public class QBF implements Evaluator<Integer> {
 
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see problems.BinaryEvaluator#evaluate(solutions.IntSolution)
+	 */
+	@Override
+	public double evaluate(IntSolution sol) {
+
+		setVariables(sol);
+		return sol.cost = evaluateQBF();
+
+	}
+
 	/**
 	 * Evaluates a QBF by calculating the matrix multiplication that defines the
-	 * QBF: f(x) = x'.A.x .
+	 * QBF: f(x) = x'.A.x . Since A is upper triangular, only the cells with
+	 * j >= i of the selected rows are visited, each row as one contiguous dot
+	 * product (SIMD when the Vector API kernel is available).
 	 * 
 	 * @return The value of the QBF.
 	 */
-	public Double evaluateQBF() {
+	public double evaluateQBF() {
 
-		Double aux = (double) 0, sum = (double) 0;
-		Double vecAux[] = new Double[size];
+		double sum = 0;
 
 		for (int i = 0; i < size; i++) {
-			for (int j = 0; j < size; j++) {
-				aux += variables[j] * A[i][j];
-			}
-			vecAux[i] = aux;
-			sum += aux * variables[i];
-			aux = (double) 0;
+			if (variables[i] == 0)
+				continue;
+			sum += A.upperRowDot(i, variables);
 		}
 
 		return sum;
@@ -138,6 +167,20 @@ public class QBF implements Evaluator<Integer> {
 
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see problems.BinaryEvaluator#evaluateInsertionCost(int,
+	 * solutions.IntSolution)
+	 */
+	@Override
+	public double evaluateInsertionCost(int elem, IntSolution sol) {
+
+		setVariables(sol);
+		return evaluateInsertionQBF(elem);
+
+	}
+
 	/**
 	 * Determines the contribution to the QBF objective function from the
 	 * insertion of an element.
@@ -147,7 +190,7 @@ public class QBF implements Evaluator<Integer> {
 	 * @return Ihe variation of the objective function resulting from the
 	 *         insertion.
 	 */
-	public Double evaluateInsertionQBF(int i) {
+	public double evaluateInsertionQBF(int i) {
 
 		if (variables[i] == 1)
 			return 0.0;
@@ -169,6 +212,20 @@ public class QBF implements Evaluator<Integer> {
 
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see problems.BinaryEvaluator#evaluateRemovalCost(int,
+	 * solutions.IntSolution)
+	 */
+	@Override
+	public double evaluateRemovalCost(int elem, IntSolution sol) {
+
+		setVariables(sol);
+		return evaluateRemovalQBF(elem);
+
+	}
+
 	/**
 	 * Determines the contribution to the QBF objective function from the
 	 * removal of an element.
@@ -178,7 +235,7 @@ public class QBF implements Evaluator<Integer> {
 	 * @return The variation of the objective function resulting from the
 	 *         removal.
 	 */
-	public Double evaluateRemovalQBF(int i) {
+	public double evaluateRemovalQBF(int i) {
 
 		if (variables[i] == 0)
 			return 0.0;
@@ -201,6 +258,20 @@ public class QBF implements Evaluator<Integer> {
 
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see problems.BinaryEvaluator#evaluateExchangeCost(int, int,
+	 * solutions.IntSolution)
+	 */
+	@Override
+	public double evaluateExchangeCost(int elemIn, int elemOut, IntSolution sol) {
+
+		setVariables(sol);
+		return evaluateExchangeQBF(elemIn, elemOut);
+
+	}
+
 	/**
 	 * Determines the contribution to the QBF objective function from the
 	 * exchange of two elements one belonging to the solution and the other not.
@@ -214,9 +285,9 @@ public class QBF implements Evaluator<Integer> {
 	 * @return The variation of the objective function resulting from the
 	 *         exchange.
 	 */
-	public Double evaluateExchangeQBF(int in, int out) {
+	public double evaluateExchangeQBF(int in, int out) {
 
-		Double sum = 0.0;
+		double sum = 0.0;
 
 		if (in == out)
 			return 0.0;
@@ -227,7 +298,7 @@ public class QBF implements Evaluator<Integer> {
 
 		sum += evaluateContributionQBF(in);
 		sum -= evaluateContributionQBF(out);
-		sum -= (A[in][out] + A[out][in]);
+		sum -= A.sym(in, out);
 
 		return sum;
 	}
@@ -246,15 +317,12 @@ public class QBF implements Evaluator<Integer> {
 	 * @return the variation of the objective function resulting from the
 	 *         insertion.
 	 */
-	private Double evaluateContributionQBF(int i) {
+	private double evaluateContributionQBF(int i) {
 
-		Double sum = 0.0;
+		double sum = 0.0;
 
-		for (int j = 0; j < size; j++) {
-			if (i != j)
-				sum += variables[j] * (A[i][j] + A[j][i]);
-		}
-		sum += A[i][i];
+		sum += A.symRowDot(i, variables);
+		sum += A.diag(i);
 
 		return sum;
 	}
@@ -273,23 +341,20 @@ public class QBF implements Evaluator<Integer> {
 	 */
 	protected Integer readInput(String filename) throws IOException {
 
-		Reader fileInst = new BufferedReader(new FileReader(filename));
-		StreamTokenizer stok = new StreamTokenizer(fileInst);
+		try (InstanceTokenizer tok = new InstanceTokenizer(Paths.get(filename))) {
 
-		stok.nextToken();
-		Integer _size = (int) stok.nval;
-		A = new Double[_size][_size];
+			Integer _size = tok.nextInt("N");
+			CoefficientMatrix.Builder builder = CoefficientMatrix.builder(_size);
 
-		for (int i = 0; i < _size; i++) {
-			for (int j = i; j < _size; j++) {
-				stok.nextToken();
-				A[i][j] = stok.nval;
-				if (j>i)
-					A[j][i] = 0.0;
+			for (int i = 0; i < _size; i++) {
+				for (int j = i; j < _size; j++) {
+					builder.set(i, j, tok.nextDouble("matrix A"));
+				}
 			}
-		}
+			A = builder.build();
 
-		return _size;
+			return _size;
+		}
 
 	}
 
@@ -299,8 +364,8 @@ public class QBF implements Evaluator<Integer> {
 	 * 
 	 * @return a pointer to the array of domain variables.
 	 */
-	protected Double[] allocateVariables() {
-		Double[] _variables = new Double[size];
+	protected double[] allocateVariables() {
+		double[] _variables = new double[size];
 		return _variables;
 	}
 
@@ -318,7 +383,7 @@ public class QBF implements Evaluator<Integer> {
 
 		for (int i = 0; i < size; i++) {
 			for (int j = i; j < size; j++) {
-				System.out.print(A[i][j] + " ");
+				System.out.print(A.get(i, j) + " ");
 			}
 			System.out.println();
 		}
@@ -335,7 +400,7 @@ public class QBF implements Evaluator<Integer> {
 
 		QBF qbf = new QBF("instances/qbf/qbf040");
 		qbf.printMatrix();
-		Double maxVal = Double.NEGATIVE_INFINITY;
+		double maxVal = Double.NEGATIVE_INFINITY;
 		
 		// evaluates randomly generated values for the domain, saving the best
 		// one.
@@ -347,7 +412,7 @@ public class QBF implements Evaluator<Integer> {
 					qbf.variables[j] = 1.0;
 			}
 			//System.out.println("x = " + Arrays.toString(qbf.variables));
-			Double eval = qbf.evaluateQBF();
+			double eval = qbf.evaluateQBF();
 			//System.out.println("f(x) = " + eval);
 			if (maxVal < eval)
 				maxVal = eval;
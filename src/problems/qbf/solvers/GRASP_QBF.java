@@ -2,9 +2,13 @@ package problems.qbf.solvers;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
 
 import metaheuristics.grasp.AbstractGRASP;
+import metaheuristics.grasp.AsyncLog;
 import problems.qbf.QBF_Inverse;
+import solutions.IndexedIntSet;
+import solutions.IntSolution;
 import solutions.Solution;
 
 
@@ -19,6 +23,12 @@ import solutions.Solution;
  */
 public class GRASP_QBF extends AbstractGRASP<Integer> {
 
+	/**
+	 * The objective function, typed so that the local search can use the
+	 * primitive {@link IntSolution} overloads.
+	 */
+	private final QBF_Inverse qbf;
+
 	/**
 	 * Constructor for the GRASP_QBF class. An inverse QBF objective function is
 	 * passed as argument for the superclass constructor.
@@ -36,6 +46,7 @@ public class GRASP_QBF extends AbstractGRASP<Integer> {
 	 */
 	public GRASP_QBF(Double alpha, Integer iterations, String filename) throws IOException {
 		super(new QBF_Inverse(filename), alpha, iterations);
+		this.qbf = (QBF_Inverse) ObjFunction;
 	}
 
 	/*
@@ -44,15 +55,10 @@ public class GRASP_QBF extends AbstractGRASP<Integer> {
 	 * @see grasp.abstracts.AbstractGRASP#makeCL()
 	 */
 	@Override
-	public ArrayList<Integer> makeCL() {
-
-		ArrayList<Integer> _CL = new ArrayList<Integer>();
-		for (int i = 0; i < ObjFunction.getDomainSize(); i++) {
-			Integer cand = i;
-			_CL.add(cand);
-		}
+	public List<Integer> makeCL() {
 
-		return _CL;
+		// all elements, in a set with O(1) removal and membership
+		return IndexedIntSet.full(ObjFunction.getDomainSize());
 
 	}
 
@@ -85,13 +91,13 @@ public class GRASP_QBF extends AbstractGRASP<Integer> {
 	/**
 	 * {@inheritDoc}
 	 * 
-	 * This createEmptySol instantiates an empty solution and it attributes a
-	 * zero cost, since it is known that a QBF solution with all variables set
-	 * to zero has also zero cost.
+	 * This createEmptySol instantiates an empty {@link IntSolution} and it
+	 * attributes a zero cost, since it is known that a QBF solution with all
+	 * variables set to zero has also zero cost.
 	 */
 	@Override
 	public Solution<Integer> createEmptySol() {
-		Solution<Integer> sol = new Solution<Integer>();
+		IntSolution sol = new IntSolution(ObjFunction.getDomainSize());
 		sol.cost = 0.0;
 		return sol;
 	}
@@ -105,35 +111,41 @@ public class GRASP_QBF extends AbstractGRASP<Integer> {
 	@Override
 	public Solution<Integer> localSearch() {
 
-		Double minDeltaCost;
-		Integer bestCandIn = null, bestCandOut = null;
+		double minDeltaCost;
+		int bestCandIn = -1, bestCandOut = -1;
+		IntSolution sol = (IntSolution) this.sol;
+		IndexedIntSet CL = (IndexedIntSet) this.CL;
 
 		do {
 			minDeltaCost = Double.POSITIVE_INFINITY;
 			updateCL();
 				
 			// Evaluate insertions
-			for (Integer candIn : CL) {
-				double deltaCost = ObjFunction.evaluateInsertionCost(candIn, sol);
+			for (int c = 0; c < CL.size(); c++) {
+				int candIn = CL.getInt(c);
+				double deltaCost = qbf.evaluateInsertionCost(candIn, sol);
 				if (deltaCost < minDeltaCost) {
 					minDeltaCost = deltaCost;
 					bestCandIn = candIn;
-					bestCandOut = null;
+					bestCandOut = -1;
 				}
 			}
 			// Evaluate removals
-			for (Integer candOut : sol) {
-				double deltaCost = ObjFunction.evaluateRemovalCost(candOut, sol);
+			for (int k = 0; k < sol.size(); k++) {
+				int candOut = sol.getInt(k);
+				double deltaCost = qbf.evaluateRemovalCost(candOut, sol);
 				if (deltaCost < minDeltaCost) {
 					minDeltaCost = deltaCost;
-					bestCandIn = null;
+					bestCandIn = -1;
 					bestCandOut = candOut;
 				}
 			}
 			// Evaluate exchanges
-			for (Integer candIn : CL) {
-				for (Integer candOut : sol) {
-					double deltaCost = ObjFunction.evaluateExchangeCost(candIn, candOut, sol);
+			for (int c = 0; c < CL.size(); c++) {
+				int candIn = CL.getInt(c);
+				for (int k = 0; k < sol.size(); k++) {
+					int candOut = sol.getInt(k);
+					double deltaCost = qbf.evaluateExchangeCost(candIn, candOut, sol);
 					if (deltaCost < minDeltaCost) {
 						minDeltaCost = deltaCost;
 						bestCandIn = candIn;
@@ -143,15 +155,15 @@ public class GRASP_QBF extends AbstractGRASP<Integer> {
 			}
 			// Implement the best move, if it reduces the solution cost.
 			if (minDeltaCost < -Double.MIN_VALUE) {
-				if (bestCandOut != null) {
-					sol.remove(bestCandOut);
-					CL.add(bestCandOut);
+				if (bestCandOut >= 0) {
+					sol.removeInt(bestCandOut);
+					CL.addInt(bestCandOut);
 				}
-				if (bestCandIn != null) {
-					sol.add(bestCandIn);
-					CL.remove(bestCandIn);
+				if (bestCandIn >= 0) {
+					sol.addInt(bestCandIn);
+					CL.removeInt(bestCandIn);
 				}
-				ObjFunction.evaluate(sol);
+				qbf.evaluate(sol);
 			}
 		} while (minDeltaCost < -Double.MIN_VALUE);
 
@@ -159,18 +171,21 @@ public class GRASP_QBF extends AbstractGRASP<Integer> {
 	}
 
 	/**
-	 * A main method used for testing the GRASP metaheuristic.
+	 * A main method used for testing the GRASP metaheuristic. The result goes
+	 * through {@link AsyncLog#console()}, after the progress lines.
 	 * 
 	 */
-	public static void main(String[] args) throws IOException {
+	public static void main(String[] args) throws IOException, InterruptedException {
 
 		long startTime = System.currentTimeMillis();
 		GRASP_QBF grasp = new GRASP_QBF(0.05, 1000, "instances/qbf/qbf040");
 		Solution<Integer> bestSol = grasp.solve();
-		System.out.println("maxVal = " + bestSol);
+		AsyncLog console = AsyncLog.console();
+		console.put("maxVal = " + bestSol);
 		long endTime   = System.currentTimeMillis();
 		long totalTime = endTime - startTime;
-		System.out.println("Time = "+(double)totalTime/(double)1000+" seg");
+		console.put("Time = "+(double)totalTime/(double)1000+" seg");
+		console.close();
 
 	}
 
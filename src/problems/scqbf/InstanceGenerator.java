@@ -0,0 +1,322 @@
+package problems.scqbf;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Gerador de instâncias SCQBF sintéticas no formato lido por {@link SCQBF#SCQBF(String)},
+ * para estudos de escala (milhares a dezenas de milhares de variáveis).
+ *
+ * A saída é escrita em fluxo: a matriz sai linha a linha e nunca é guardada,
+ * e os conjuntos são gerados por um fluxo determinístico percorrido duas vezes
+ * (a primeira só mede os tamanhos e a cobertura, a segunda escreve), então a
+ * memória é O(n) mesmo quando Σ|S_i| é da ordem de n².
+ *
+ * Famílias (mesmos nomes das instâncias do lab):
+ * <ul>
+ *   <li>{@code aleatorio} — elementos sorteados uniformemente;</li>
+ *   <li>{@code balanceado} — elementos tirados de permutações sucessivas de 0..n-1,
+ *       então as frequências de cobertura diferem no máximo em ~1;</li>
+ *   <li>{@code concentrado} — com probabilidade 0.8 o elemento vem de um
+ *       subconjunto "quente" de n/5 elementos.</li>
+ * </ul>
+ * Todo elemento que nenhum conjunto cobriu é acrescentado a um conjunto
+ * sorteado, o que garante uma cobertura viável (a solução com todos os x_i = 1).
+ *
+ * Uso:
+ * <pre>
+ * java -cp bin problems.scqbf.InstanceGenerator &lt;saida.dat&gt; &lt;n&gt;
+ *      [--family=aleatorio|balanceado|concentrado] [--sizes=fixed:K|uniform:A:B|bimodal:A:B:P]
+ *      [--density=0.95] [--range=-10:10] [--seed=42]
+ * </pre>
+ */
+public final class InstanceGenerator {
+
+    public enum Family { ALEATORIO, BALANCEADO, CONCENTRADO }
+
+    /**
+     * Distribuição dos tamanhos |S_i|: fixo K; uniforme em [A, B]; ou bimodal,
+     * B com probabilidade P e A caso contrário. Tamanhos são limitados a n.
+     */
+    public static final class SizeDistribution {
+        final int a, b;
+        final double p;   // < 0: uniforme em [a, b]
+
+        private SizeDistribution(int a, int b, double p) {
+            if (a < 0 || b < a) throw new IllegalArgumentException("Tamanhos inválidos: " + a + ".." + b);
+            this.a = a; this.b = b; this.p = p;
+        }
+
+        public static SizeDistribution fixed(int k) { return new SizeDistribution(k, k, -1.0); }
+        public static SizeDistribution uniform(int min, int max) { return new SizeDistribution(min, max, -1.0); }
+        public static SizeDistribution bimodal(int small, int large, double pLarge) {
+            return new SizeDistribution(small, large, pLarge);
+        }
+
+        /** fixed:K, uniform:A:B ou bimodal:A:B:P. */
+        public static SizeDistribution parse(String s) {
+            String[] t = s.split(":");
+            switch (t[0]) {
+                case "fixed":   return fixed(Integer.parseInt(t[1]));
+                case "uniform": return uniform(Integer.parseInt(t[1]), Integer.parseInt(t[2]));
+                case "bimodal": return bimodal(Integer.parseInt(t[1]), Integer.parseInt(t[2]), Double.parseDouble(t[3]));
+                default: throw new IllegalArgumentException("Distribuição de tamanhos desconhecida: " + s);
+            }
+        }
+
+        int sample(SplittableRandom rnd, int n) {
+            int k;
+            if (p >= 0) k = (rnd.nextDouble() < p) ? b : a;
+            else k = (a == b) ? a : a + rnd.nextInt(b - a + 1);
+            return Math.min(k, n);
+        }
+
+        /** Padrão de cada família, próximo das instâncias do lab. */
+        static SizeDistribution defaultFor(Family family, int n) {
+            switch (family) {
+                case BALANCEADO:  return uniform(0, 6);
+                case CONCENTRADO: return bimodal(1, Math.max(1, n / 4), 0.5);
+                default:          return fixed(Math.max(1, n / 10));
+            }
+        }
+    }
+
+    private static final double HOT_PROB = 0.8;
+
+    public final int n;
+    public final Family family;
+    public final SizeDistribution sizes;
+    public final double density;       // fração esperada de coeficientes não nulos em A
+    public final int coefMin, coefMax; // coeficientes inteiros uniformes em [coefMin, coefMax]
+    public final long seed;
+
+    public InstanceGenerator(int n, Family family, SizeDistribution sizes,
+                             double density, int coefMin, int coefMax, long seed) {
+        if (n <= 0) throw new IllegalArgumentException("n deve ser positivo: " + n);
+        if (density < 0.0 || density > 1.0) throw new IllegalArgumentException("densidade fora de [0,1]: " + density);
+        if (coefMax < coefMin) throw new IllegalArgumentException("faixa de coeficientes vazia: " + coefMin + ":" + coefMax);
+        this.n = n;
+        this.family = family;
+        this.sizes = (sizes != null) ? sizes : SizeDistribution.defaultFor(family, n);
+        this.density = density;
+        this.coefMin = coefMin;
+        this.coefMax = coefMax;
+        this.seed = seed;
+    }
+
+    /* ---------- Fluxo de conjuntos (determinístico, pode ser repetido) ---------- */
+
+    private final class SetStream {
+        final SplittableRandom rnd;
+        final int[] perm;     // permutação de trabalho (Fisher-Yates parcial / balanceado)
+        final int[] stamp;    // stamp[k] == id do conjunto atual se k já entrou nele
+        final int hot;        // concentrado: perm[0..hot) são os elementos quentes
+        int ptr;              // balanceado: próxima posição da permutação corrente
+        int id;
+
+        SetStream(long streamSeed) {
+            rnd = new SplittableRandom(streamSeed);
+            perm = new int[n];
+            for (int k = 0; k < n; k++) perm[k] = k;
+            stamp = new int[n];
+            hot = Math.max(1, n / 5);
+            if (family != Family.ALEATORIO) shuffle(perm, n);
+        }
+
+        private void shuffle(int[] a, int len) {
+            for (int i = len - 1; i > 0; i--) {
+                int j = rnd.nextInt(i + 1);
+                int t = a[i]; a[i] = a[j]; a[j] = t;
+            }
+        }
+
+        /** Preenche buf com o próximo conjunto (0-based, sem repetições) e devolve |S|. */
+        int next(int[] buf) {
+            int size = sizes.sample(rnd, n);
+            id++;
+            int len = 0;
+            if (family == Family.BALANCEADO) {
+                while (len < size) {
+                    if (ptr == n) { shuffle(perm, n); ptr = 0; }
+                    int k = perm[ptr++];
+                    if (stamp[k] != id) { stamp[k] = id; buf[len++] = k; }
+                }
+            } else if (family == Family.CONCENTRADO && size <= hot / 2) {
+                while (len < size) {
+                    int k = (rnd.nextDouble() < HOT_PROB) ? perm[rnd.nextInt(hot)] : rnd.nextInt(n);
+                    if (stamp[k] != id) { stamp[k] = id; buf[len++] = k; }
+                }
+            } else if (family != Family.CONCENTRADO && size <= n / 2) {
+                while (len < size) {
+                    int k = rnd.nextInt(n);
+                    if (stamp[k] != id) { stamp[k] = id; buf[len++] = k; }
+                }
+            } else {
+                // conjuntos grandes: Fisher-Yates parcial, sem rejeição
+                // (no concentrado os quentes, perm[0..hot), entram primeiro)
+                int lo = 0;
+                if (family == Family.CONCENTRADO) {
+                    for (; len < Math.min(size, hot); len++, lo++) {
+                        int j = lo + rnd.nextInt(hot - lo);
+                        int t = perm[lo]; perm[lo] = perm[j]; perm[j] = t;
+                        buf[len] = perm[lo];
+                    }
+                }
+                for (; len < size; len++, lo++) {
+                    int j = lo + rnd.nextInt(n - lo);
+                    int t = perm[lo]; perm[lo] = perm[j]; perm[j] = t;
+                    buf[len] = perm[lo];
+                }
+            }
+            return len;
+        }
+    }
+
+    /* ---------- Escrita ---------- */
+
+    public void write(Path out) throws IOException {
+        Path parent = out.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        try (Writer w = new BufferedWriter(
+                new OutputStreamWriter(Files.newOutputStream(out), StandardCharsets.US_ASCII), 1 << 16)) {
+            write(w);
+        }
+    }
+
+    public void write(Writer out) throws IOException {
+        SplittableRandom root = new SplittableRandom(seed);
+        long setsSeed = root.nextLong();
+        long repairSeed = root.nextLong();
+        long matrixSeed = root.nextLong();
+
+        int[] buf = new int[n];
+
+        // 1ª passada: tamanhos e cobertura
+        int[] size = new int[n];
+        boolean[] covered = new boolean[n];
+        SetStream s1 = new SetStream(setsSeed);
+        for (int i = 0; i < n; i++) {
+            int len = s1.next(buf);
+            size[i] = len;
+            for (int t = 0; t < len; t++) covered[buf[t]] = true;
+        }
+
+        // reparo: cada elemento descoberto vai para um conjunto sorteado (CSR por conjunto)
+        SplittableRandom rr = new SplittableRandom(repairSeed);
+        int[] owner = new int[n];
+        int[] extraStart = new int[n + 1];
+        int uncovered = 0;
+        for (int k = 0; k < n; k++) {
+            if (covered[k]) continue;
+            int i = rr.nextInt(n);
+            owner[uncovered++] = i;
+            extraStart[i + 1]++;
+        }
+        for (int i = 0; i < n; i++) extraStart[i + 1] += extraStart[i];
+        int[] extra = new int[uncovered];
+        int[] fill = new int[n];
+        for (int k = 0, u = 0; k < n; k++) {
+            if (covered[k]) continue;
+            int i = owner[u++];
+            extra[extraStart[i] + fill[i]++] = k;
+        }
+        covered = null; owner = null; fill = null;
+
+        StringBuilder sb = new StringBuilder(1 << 12);
+        sb.append(n).append('\n');
+        out.append(sb); sb.setLength(0);
+        for (int i = 0; i < n; i++) {
+            if (i > 0) sb.append(' ');
+            sb.append(size[i] + extraStart[i + 1] - extraStart[i]);
+            if (sb.length() > (1 << 12)) { out.append(sb); sb.setLength(0); }
+        }
+        sb.append('\n');
+        out.append(sb); sb.setLength(0);
+
+        // 2ª passada: o mesmo fluxo, agora escrito (conjuntos vazios não têm linha)
+        SetStream s2 = new SetStream(setsSeed);
+        for (int i = 0; i < n; i++) {
+            int len = s2.next(buf);
+            int e0 = extraStart[i], e1 = extraStart[i + 1];
+            if (len + e1 - e0 == 0) continue;
+            boolean first = true;
+            for (int t = 0; t < len; t++) {
+                if (!first) sb.append(' ');
+                sb.append(buf[t] + 1);
+                first = false;
+            }
+            for (int e = e0; e < e1; e++) {
+                if (!first) sb.append(' ');
+                sb.append(extra[e] + 1);
+                first = false;
+            }
+            sb.append('\n');
+            if (sb.length() > (1 << 12)) { out.append(sb); sb.setLength(0); }
+        }
+
+        // A triangular superior, linha a linha
+        SplittableRandom mr = new SplittableRandom(matrixSeed);
+        int span = coefMax - coefMin + 1;
+        for (int i = 0; i < n; i++) {
+            for (int j = i; j < n; j++) {
+                if (j > i) sb.append(' ');
+                int v = (density >= 1.0 || mr.nextDouble() < density) ? coefMin + mr.nextInt(span) : 0;
+                sb.append(v);
+                if (sb.length() > (1 << 12)) { out.append(sb); sb.setLength(0); }
+            }
+            sb.append('\n');
+        }
+        out.append(sb);
+        out.flush();
+    }
+
+    /* ---------- Linha de comando ---------- */
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Uso: java -cp bin problems.scqbf.InstanceGenerator <saida.dat> <n> "
+                    + "[--family=aleatorio|balanceado|concentrado] [--sizes=fixed:K|uniform:A:B|bimodal:A:B:P] "
+                    + "[--density=0.95] [--range=-10:10] [--seed=42]");
+            System.exit(1);
+        }
+        Path out = Paths.get(args[0]);
+        int n = Integer.parseInt(args[1]);
+        Family family = Family.ALEATORIO;
+        SizeDistribution sizes = null;
+        double density = 0.95;
+        int lo = -10, hi = 10;
+        long seed = 42L;
+        for (int a = 2; a < args.length; a++) {
+            String arg = args[a];
+            int eq = arg.indexOf('=');
+            String key = (eq < 0) ? arg : arg.substring(0, eq);
+            String val = (eq < 0) ? "" : arg.substring(eq + 1);
+            switch (key) {
+                case "--family":  family = Family.valueOf(val.toUpperCase(Locale.ROOT)); break;
+                case "--sizes":   sizes = SizeDistribution.parse(val); break;
+                case "--density": density = Double.parseDouble(val); break;
+                case "--range": {
+                    int c = val.indexOf(':', 1); // permite "-10:10"
+                    lo = Integer.parseInt(val.substring(0, c));
+                    hi = Integer.parseInt(val.substring(c + 1));
+                    break;
+                }
+                case "--seed":    seed = Long.parseLong(val); break;
+                default: throw new IllegalArgumentException("Opção desconhecida: " + arg);
+            }
+        }
+        InstanceGenerator gen = new InstanceGenerator(n, family, sizes, density, lo, hi, seed);
+        long t0 = System.nanoTime();
+        gen.write(out);
+        System.out.printf(Locale.ROOT, "Gerada %s (n=%d, %s, %.1fs)%n",
+                out, n, family.name().toLowerCase(Locale.ROOT), (System.nanoTime() - t0) / 1e9);
+    }
+}
@@ -1,10 +1,11 @@
 package problems.scqbf;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.*;
-import problems.Evaluator;
+import problems.BinaryEvaluator;
+import problems.CoefficientMatrix;
+import solutions.BitVector;
+import solutions.IntSolution;
 import solutions.Solution;
 
 /**
@@ -14,127 +15,80 @@ import solutions.Solution;
  *
  * Este Evaluator segue o framework (minimização) retornando custo = -f(x),
  * e fornece deltas de inserção/remoção/troca em O(1) a partir de estado
- * incremental reconstruído a cada avaliação a partir de sol (simples e robusto).
+ * incremental (x, w, cover, f e um hash Zobrist de x) vinculado a uma
+ * Solution por sessão: {@link #bind(Solution)} reconstrói o estado uma vez e os commits
+ * ({@link #commitAdd}, {@link #commitDrop}, {@link #commitSwap}) mantêm
+ * estado e solução sincronizados em O(n) por movimento. As consultas de
+ * delta só reconstroem o estado se receberem outra solução (ou uma solução
+ * vinculada cujo tamanho mudou por fora dos commits).
  *
- * Formato da instância (mesmo da Atividade 1):
- * n
- * |S_0| |S_1| ... |S_{n-1}|
- * linha com elementos de S_0 (1-based, pode ser vazia se |S_0|=0)
- * ...
- * linha com elementos de S_{n-1}
- * A[0,0..n-1]
- * A[1,1..n-1]
- * ...
- * A[n-1,n-1]
+ * A viabilidade de remoção usa um índice de elementos críticos: para cada
+ * elemento k, coverSum[k] guarda a soma dos índices dos conjuntos selecionados
+ * que o cobrem (com cover[k] == 1 é o próprio dono), e critical[i] conta os
+ * elementos que só S_i cobre. Remover i é viável sse critical[i] == 0 (O(1));
+ * trocar out por in é viável sse S_in contém todos os críticos de out
+ * (O(|S_in|)), o que aceita trocas que a checagem isolada de out rejeitava.
+ *
+ * Os dados (n, S_i, A) ficam numa {@link SCQBFInstance} imutável e
+ * compartilhável; este objeto guarda só o estado da sessão.
  */
-public class SCQBF implements Evaluator<Integer> {
+public class SCQBF implements BinaryEvaluator {
+
+    public final SCQBFInstance data;     // instância (só leitura, compartilhável)
+    public final int n;                  // = data.n
+    public final List<int[]> sets;       // = data.sets
+    public final CoefficientMatrix A;    // = data.A
 
-    public final int n;                  // número de variáveis / conjuntos
-    public final List<int[]> sets;       // S_i (0-based)
-    public final double[][] A;           // matriz triangular superior conforme framework
+    /**
+     * Se true, cada commit confere o estado incremental contra uma reconstrução
+     * completa (lança IllegalStateException na divergência). Ativável com -Dscqbf.debug=true.
+     */
+    public static boolean debug = Boolean.getBoolean("scqbf.debug");
 
     // Estado incremental associado a uma Solution corrente (reconstruído quando necessário)
-    boolean[] x;     // seleção atual
+    BitVector x;     // seleção atual (um bit por conjunto)
     int[] cover;     // cobertura por elemento k (0..n-1)
-    double[] w;      // w[i] = sum_j x[j]*(A[i][j] + A[j][i])
+    int[] coverSum;  // soma dos i selecionados que cobrem k (o dono quando cover[k] == 1; overflow é inofensivo)
+    int[] critical;  // critical[i] = #elementos cobertos só por S_i (0 para i fora da solução)
+    double[] w;      // w[i] = sum_{j != i} x[j]*(A[i][j] + A[j][i]), mantido para todo i
     double f;        // valor atual f(x) = x' A x
+    long hash;       // hash Zobrist de x: XOR de zobristKey(i) sobre os i selecionados
 
-    /* ---------- Utilidades de parsing ---------- */
-
-    /** Lê a próxima linha não vazia; lança exceção clara se EOF for atingido. */
-    private static String readNonEmpty(BufferedReader br, String ctx) throws IOException {
-        String line;
-        while (true) {
-            line = br.readLine();
-            if (line == null)
-                throw new IOException("Fim de arquivo inesperado ao ler " + ctx);
-            if (!line.trim().isEmpty())
-                return line;
-            // pula linhas em branco
-        }
-    }
+    // Sessão: solução à qual o estado está vinculado e seu tamanho no último sync
+    private Solution<Integer> bound;
+    private IntSolution boundInt;   // bound, quando é IntSolution (caminho sem boxing)
+    private int boundSize;
 
+    /**
+     * Lê a instância e abre uma sessão sobre ela. Para vários avaliadores da
+     * mesma instância, leia uma vez com {@link SCQBFInstance#load(String)} e use
+     * {@link #SCQBF(SCQBFInstance)}.
+     */
     public SCQBF(String filename) throws IOException {
-        try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
-            // n
-            String nLine = readNonEmpty(br, "n");
-            n = Integer.parseInt(nLine.trim());
-
-            // tamanhos dos conjuntos
-            String sizesLine = readNonEmpty(br, "tamanhos dos conjuntos");
-            String[] parts = sizesLine.trim().split("\\s+");
-            if (parts.length != n) {
-                throw new IOException("Linha de tamanhos dos conjuntos != n (" + parts.length + " vs " + n + ")");
-            }
-            int[] sz = new int[n];
-            for (int i = 0; i < n; i++) {
-                if (parts[i].isEmpty())
-                    throw new IOException("Token vazio em tamanhos na posição " + i);
-                sz[i] = Integer.parseInt(parts[i]);
-                if (sz[i] < 0) {
-                    throw new IOException("|S_" + i + "| negativo: " + sz[i]);
-                }
-            }
-
-            // S_i
-            sets = new ArrayList<>(n);
-            for (int i = 0; i < n; i++) {
-                if (sz[i] == 0) {
-                    sets.add(new int[0]);
-                } else {
-                    String line = readNonEmpty(br, "S_" + i);
-                    String[] toks = line.trim().split("\\s+");
-                    if (toks.length != sz[i]) {
-                        throw new IOException("S_" + i + ": esperado " + sz[i] + " elementos, mas veio " + toks.length);
-                    }
-                    int[] list = new int[toks.length];
-                    for (int t = 0; t < toks.length; t++) {
-                        if (toks[t].isEmpty())
-                            throw new IOException("Token vazio em S_" + i + " idx " + t);
-                        int v = Integer.parseInt(toks[t]); // 1-based no arquivo
-                        int v0 = v - 1;                    // 0-based interno
-                        if (v0 < 0 || v0 >= n) {
-                            throw new IOException("Elemento fora do domínio em S_" + i + ": " + v + " (válido: 1.."+ n +")");
-                        }
-                        list[t] = v0;
-                    }
-                    sets.add(list);
-                }
-            }
-
-            // Matriz A (triangular superior no arquivo)
-            double[][] T = new double[n][n];
-            for (int i = 0; i < n; i++) {
-                String line = readNonEmpty(br, "A[" + i + ", i..n-1]");
-                String[] toks = line.trim().split("\\s+");
-                int expected = (n - i);
-                if (toks.length != expected) {
-                    throw new IOException("A[" + i + "]: esperado " + expected + " valores, veio " + toks.length);
-                }
-                for (int j = i; j < n; j++) {
-                    String tok = toks[j - i];
-                    if (tok.isEmpty())
-                        throw new IOException("Token vazio em A[" + i + "," + j + "]");
-                    T[i][j] = Double.parseDouble(tok);
-                }
-            }
-
-            // Armazenar em A no mesmo espírito do QBF do professor:
-            // A[i][j] preenchida apenas para j>=i, e A[j][i] = 0 para j>i.
-            A = new double[n][n];
-            for (int i = 0; i < n; i++) {
-                for (int j = i; j < n; j++) {
-                    A[i][j] = T[i][j];
-                    if (j > i) A[j][i] = 0.0;
-                }
-            }
-
-            // Estado
-            x = new boolean[n];
-            cover = new int[n];
-            w = new double[n];
-            f = 0.0;
-        }
+        this(SCQBFInstance.load(filename));
+    }
+
+    /**
+     * Nova sessão (estado zerado) sobre data, que é só lida: várias sessões,
+     * inclusive em threads diferentes, podem compartilhar a mesma instância.
+     */
+    public SCQBF(SCQBFInstance data) {
+        this.data = data;
+        n = data.n;
+        sets = data.sets;
+        A = data.A;
+        // Estado
+        x = new BitVector(n);
+        cover = new int[n];
+        coverSum = new int[n];
+        critical = new int[n];
+        w = new double[n];
+        f = 0.0;
+    }
+
+    /** Nova sessão sobre a mesma instância de other (ver {@link #SCQBF(SCQBFInstance)}). */
+    public SCQBF(SCQBF other) {
+        this(other.data);
     }
 
     @Override
@@ -145,105 +99,286 @@ public class SCQBF implements Evaluator<Integer> {
     /* ---------- Utilidades internas ---------- */
 
     private double symA(int i, int j) {
-        // coerente com QBF do prof: usa A[i][j] + A[j][i]
-        return A[i][j] + A[j][i];
+        // coerente com QBF do prof: A[i][j] + A[j][i]
+        return A.sym(i, j);
     }
 
     private void resetState() {
-        Arrays.fill(x, false);
+        x.clear();
         Arrays.fill(cover, 0);
+        Arrays.fill(coverSum, 0);
+        Arrays.fill(critical, 0);
         Arrays.fill(w, 0.0);
         f = 0.0;
+        hash = 0L;
     }
 
     private void rebuildFromSolution(Solution<Integer> sol) {
         resetState();
-        // Reconstrói incrementalmente (rápido e simples)
-        for (int e : sol) {
-            applyAdd(e, true);
+        // Reconstrói incrementalmente (O(|S|·n))
+        if (sol instanceof IntSolution) {
+            IntSolution s = (IntSolution) sol;
+            for (int k = 0; k < s.size(); k++) applyAdd(s.getInt(k));
+        } else {
+            for (int e : sol) applyAdd(e);
         }
     }
 
+    /**
+     * Chave Zobrist do conjunto i: SplitMix64 de i, determinística e sem
+     * tabela (o mesmo i tem a mesma chave em todas as sessões).
+     */
+    static long zobristKey(int i) {
+        long z = (i + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
     private boolean canDrop(int i) {
+        return critical[i] == 0;
+    }
+
+    /** Se remover out (dentro) e inserir in (fora) preserva a cobertura. */
+    private boolean canSwap(int in, int out) {
+        int need = critical[out];
+        if (need == 0) return true;
+        // os críticos de out precisam estar todos em S_in
+        for (int k : sets.get(in)) {
+            if (cover[k] == 1 && coverSum[k] == out && --need == 0) return true;
+        }
+        return false;
+    }
+
+    private void applyAdd(int i) {
+        if (x.get(i)) return;
+        f += A.diag(i) + w[i];
+        // w[j] += symA(i,j) para todo j != i (selecionados ou não), assim os
+        // deltas de inserção dos candidatos também ficam em O(1)
+        A.addRowTo(i, 1.0, w);
+        x.set(i);
+        hash ^= zobristKey(i);
         for (int k : sets.get(i)) {
-            if (cover[k] <= 1) return false;
+            int c = cover[k]++;
+            if (c == 0) critical[i]++;                    // i passa a ser o único
+            else if (c == 1) critical[coverSum[k]]--;     // o antigo dono deixa de ser
+            coverSum[k] += i;
         }
-        return true;
     }
 
-    private void applyAdd(int i, boolean touchF) {
-        if (x[i]) return;
-        double deltaF = A[i][i] + w[i];
-        if (touchF) f += deltaF;
-        // atualizar w[j] para j já selecionados
-        for (int j = 0; j < n; j++) if (x[j]) {
-            double s = symA(i, j);
-            w[j] += s;
+    private void applyDrop(int i) {
+        if (!x.get(i)) return;
+        f -= A.diag(i) + w[i];
+        A.addRowTo(i, -1.0, w);
+        x.clear(i);
+        hash ^= zobristKey(i);
+        for (int k : sets.get(i)) {
+            int c = --cover[k];
+            coverSum[k] -= i;
+            if (c == 1) critical[coverSum[k]]++;          // quem sobrou vira dono
+            else if (c == 0) critical[i]--;               // remoção inviável (ex.: solução externa)
         }
-        // w[i] = Σ_j x[j] * symA(i,j)
-        double wi = 0.0;
-        for (int j = 0; j < n; j++) if (x[j]) wi += symA(i, j);
-        w[i] = wi;
-        x[i] = true;
-        for (int k : sets.get(i)) cover[k] += 1;
-    }
-
-    private void applyDrop(int i, boolean touchF) {
-        if (!x[i]) return;
-        double deltaF = -(A[i][i] + w[i]);
-        if (touchF) f += deltaF;
-        for (int j = 0; j < n; j++) if (x[j] && j != i) {
-            double s = symA(i, j);
-            w[j] -= s;
+    }
+
+    /** Garante que o estado corresponde a sol (reconstrói só se necessário). */
+    private void sync(Solution<Integer> sol) {
+        if (sol != bound || sol.size() != boundSize) bind(sol);
+    }
+
+    /**
+     * Confere x, cover, w e f contra uma reconstrução completa a partir de
+     * {@link #bound}. As somas percorrem só os bits ligados de x0:
+     * O(n·|S|) em vez de O(n²).
+     */
+    private void verifyState() {
+        BitVector x0 = new BitVector(n);
+        int[] cover0 = new int[n];
+        double f0 = 0.0;
+        for (int e : bound) x0.set(e);
+        for (int e = x0.nextSetBit(0); e >= 0; e = x0.nextSetBit(e + 1)) {
+            for (int k : sets.get(e)) cover0[k] += 1;
         }
-        w[i] = 0.0;
-        x[i] = false;
-        for (int k : sets.get(i)) cover[k] -= 1;
+        if (!x0.equals(x))
+            throw new IllegalStateException("SCQBF: x dessincronizado");
+        long hash0 = 0L;
+        for (int e = x0.nextSetBit(0); e >= 0; e = x0.nextSetBit(e + 1)) hash0 ^= zobristKey(e);
+        if (hash0 != hash)
+            throw new IllegalStateException("SCQBF: hash dessincronizado");
+        for (int i = 0; i < n; i++) {
+            if (cover0[i] != cover[i])
+                throw new IllegalStateException("SCQBF: cover[" + i + "] = " + cover[i] + ", esperado " + cover0[i]);
+            int crit0 = 0;
+            if (x0.get(i)) for (int k : sets.get(i)) if (cover0[k] == 1) crit0++;
+            if (crit0 != critical[i])
+                throw new IllegalStateException("SCQBF: critical[" + i + "] = " + critical[i] + ", esperado " + crit0);
+            double wi = 0.0;
+            for (int j = x0.nextSetBit(0); j >= 0; j = x0.nextSetBit(j + 1)) if (j != i) wi += symA(i, j);
+            if (Math.abs(wi - w[i]) > 1e-6 * (1.0 + Math.abs(wi)))
+                throw new IllegalStateException("SCQBF: w[" + i + "] = " + w[i] + ", esperado " + wi);
+            if (x0.get(i)) f0 += A.diag(i) + 0.5 * wi;
+        }
+        if (Math.abs(f0 - f) > 1e-6 * (1.0 + Math.abs(f0)))
+            throw new IllegalStateException("SCQBF: f = " + f + ", esperado " + f0);
+    }
+
+    /* ---------- Sessão incremental ---------- */
+
+    /**
+     * Vincula o estado incremental a sol, reconstruindo-o por completo.
+     * A partir daqui sol deve ser alterada apenas pelos commits.
+     */
+    public void bind(Solution<Integer> sol) {
+        rebuildFromSolution(sol);
+        bound = sol;
+        boundInt = (sol instanceof IntSolution) ? (IntSolution) sol : null;
+        boundSize = sol.size();
+        sol.cost = -f;
+    }
+
+    /**
+     * Hash Zobrist da solução vinculada, atualizado em O(1) a cada commit:
+     * soluções iguais têm o mesmo hash, qualquer que seja a ordem dos movimentos.
+     */
+    public long hash() {
+        return hash;
+    }
+
+    /** Custo (–Δf) de inserir i na solução vinculada; 0 se i já está dentro. */
+    public double deltaAdd(int i) {
+        if (x.get(i)) return 0.0;
+        return -(A.diag(i) + w[i]);
+    }
+
+    /** Custo (–Δf) de remover i da solução vinculada; +∞ se quebra a cobertura. */
+    public double deltaDrop(int i) {
+        if (!x.get(i)) return 0.0;
+        if (!canDrop(i)) return Double.POSITIVE_INFINITY;
+        return A.diag(i) + w[i];
+    }
+
+    /**
+     * Custo (–Δf) de remover i da solução vinculada sem checar a cobertura
+     * (para tabelas de troca; a viabilidade vem de {@link #swapFeasible}).
+     */
+    public double deltaDropUnchecked(int i) {
+        if (!x.get(i)) return 0.0;
+        return A.diag(i) + w[i];
+    }
+
+    /** Quantos elementos só i cobre na solução vinculada (0 se i está fora). */
+    public int criticalCount(int i) {
+        return critical[i];
+    }
+
+    /** Se trocar out (dentro) por in (fora) mantém a solução vinculada viável. */
+    public boolean swapFeasible(int in, int out) {
+        return canSwap(in, out);
+    }
+
+    /** Custo (–Δf) de trocar out (dentro) por in (fora) na solução vinculada. */
+    public double deltaSwap(int in, int out) {
+        if (in == out) return 0.0;
+        if (!x.get(out) && !x.get(in)) return deltaAdd(in);
+        if (x.get(out) && x.get(in))  return deltaDrop(out);
+        // out pode sair se S_in cobre todos os elementos que só out cobria
+        if (!canSwap(in, out)) return Double.POSITIVE_INFINITY;
+
+        // Δf = add(in) + drop(out) − symA(in,out) (w[in] ainda conta out)
+        double add = A.diag(in) + w[in];
+        double drop = -(A.diag(out) + w[out]);
+        return -(add + drop - symA(in, out));
+    }
+
+    /** Insere i na solução vinculada, atualizando estado e custo. */
+    public void commitAdd(int i) {
+        applyAdd(i);
+        solAdd(i);
+        afterCommit();
+    }
+
+    /** Remove i da solução vinculada, atualizando estado e custo. */
+    public void commitDrop(int i) {
+        applyDrop(i);
+        solRemove(i);
+        afterCommit();
+    }
+
+    /** Troca out (dentro) por in (fora) na solução vinculada. */
+    public void commitSwap(int in, int out) {
+        applyDrop(out);
+        solRemove(out);
+        applyAdd(in);
+        solAdd(in);
+        afterCommit();
+    }
+
+    private void solAdd(int i) {
+        if (boundInt != null) boundInt.addInt(i);
+        else bound.add(i);
+    }
+
+    private void solRemove(int i) {
+        if (boundInt != null) boundInt.removeInt(i);
+        else bound.remove(Integer.valueOf(i));
+    }
+
+    private void afterCommit() {
+        boundSize = bound.size();
+        bound.cost = -f;
+        if (debug) verifyState();
     }
 
     /* ---------- Métodos do Evaluator ---------- */
 
     @Override
     public Double evaluate(Solution<Integer> sol) {
-        rebuildFromSolution(sol);
+        // avaliação completa: reconstrói e (re)vincula o estado a sol
+        bind(sol);
         // Minimiza –f
-        return sol.cost = -f;
+        return sol.cost;
     }
 
     @Override
     public Double evaluateInsertionCost(Integer elem, Solution<Integer> sol) {
-        rebuildFromSolution(sol);
-        int i = elem;
-        if (x[i]) return 0.0; // já dentro
-        double deltaF = A[i][i] + w[i];
-        return -deltaF; // custo = –Δf
+        sync(sol);
+        return deltaAdd(elem); // custo = –Δf
     }
 
     @Override
     public Double evaluateRemovalCost(Integer elem, Solution<Integer> sol) {
-        rebuildFromSolution(sol);
-        int i = elem;
-        if (!x[i]) return 0.0; // já fora
-        if (!canDrop(i)) return Double.POSITIVE_INFINITY; // quebra cobertura
-        double deltaF = -(A[i][i] + w[i]);
-        return -deltaF;
+        sync(sol);
+        return deltaDrop(elem);
     }
 
     @Override
     public Double evaluateExchangeCost(Integer elemIn, Integer elemOut, Solution<Integer> sol) {
-        rebuildFromSolution(sol);
-        int in = elemIn, out = elemOut;
-        if (in == out) return 0.0;
-        if (!x[out] && !x[in]) return evaluateInsertionCost(in, sol);
-        if (x[out] && x[in])  return evaluateRemovalCost(out, sol);
-        // só pode dropar out se não quebrar cobertura
-        if (x[out] && !canDrop(out)) return Double.POSITIVE_INFINITY;
-
-        // Δf ≈ add(in) + drop(out) − symA(in,out) (para ajustar duplo-contagem)
-        double add = A[in][in] + w[in];
-        double drop = -(A[out][out] + w[out]);
-        double corr = symA(in, out);
-        double deltaF = add + drop - corr;
-        return -deltaF;
+        sync(sol);
+        return deltaSwap(elemIn, elemOut);
+    }
+
+    /* ---------- Versões primitivas (BinaryEvaluator) ---------- */
+
+    @Override
+    public double evaluate(IntSolution sol) {
+        bind(sol);
+        return sol.cost;
+    }
+
+    @Override
+    public double evaluateInsertionCost(int elem, IntSolution sol) {
+        sync(sol);
+        return deltaAdd(elem);
+    }
+
+    @Override
+    public double evaluateRemovalCost(int elem, IntSolution sol) {
+        sync(sol);
+        return deltaDrop(elem);
+    }
+
+    @Override
+    public double evaluateExchangeCost(int elemIn, int elemOut, IntSolution sol) {
+        sync(sol);
+        return deltaSwap(elemIn, elemOut);
     }
 }
@@ -0,0 +1,211 @@
+package problems.scqbf;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import problems.CoefficientMatrix;
+import problems.SparseSymmetricMatrix;
+
+/**
+ * Cache binário de uma instância SCQBF, gravado ao lado do texto como
+ * {@code <instância>.bin}. É escrito após o primeiro parse e lido por
+ * memória mapeada nas cargas seguintes, enquanto tamanho e data de
+ * modificação do texto forem os registrados no cabeçalho (senão é ignorado
+ * e regravado).
+ *
+ * Formato (little-endian):
+ * <pre>
+ * int   magic ("SCQF"), int versão
+ * long  tamanho do texto, long mtime do texto (ms)
+ * int   n, int tipo da matriz (0 = triângulo, 1 = esparsa), long nnz
+ * int[n]      |S_i|
+ * int[Σ|S_i|] elementos de cada S_i (0-based, já sem repetições)
+ * tipo 0: double[n(n+1)/2] triângulo superior linha a linha
+ * tipo 1: double[n] diagonal; nnz × (int i, int j, double a_ij), i &lt; j
+ * </pre>
+ * A matriz passa de novo pelo {@link CoefficientMatrix.Builder}, então o
+ * formato em memória segue as mesmas regras da leitura do texto.
+ */
+final class SCQBFBinaryCache {
+
+    private static final int MAGIC = 0x46514353; // "SCQF" em little-endian
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 8 + 4 + 4 + 8;
+    private static final long WINDOW = 1L << 28;  // janela mapeada por vez
+
+    private SCQBFBinaryCache() {}
+
+    static Path sidecar(Path instance) {
+        return instance.resolveSibling(instance.getFileName() + ".bin");
+    }
+
+    /* ---------- Leitura ---------- */
+
+    /** Leitura sequencial sobre janelas mapeadas do arquivo (arquivos > 2 GB incluídos). */
+    private static final class MappedReader {
+        final FileChannel ch;
+        final long size;
+        long base;            // posição no arquivo do início de buf
+        MappedByteBuffer buf;
+
+        MappedReader(FileChannel ch) throws IOException {
+            this.ch = ch;
+            this.size = ch.size();
+            map(0);
+        }
+
+        private void map(long pos) throws IOException {
+            base = pos;
+            buf = ch.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(WINDOW, size - pos));
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        private void need(int bytes) throws IOException {
+            if (buf.remaining() < bytes) {
+                long pos = base + buf.position();
+                if (size - pos < bytes) throw new IOException("cache binário truncado");
+                map(pos);
+            }
+        }
+
+        long remaining() { return size - base - buf.position(); }
+        int getInt() throws IOException { need(4); return buf.getInt(); }
+        long getLong() throws IOException { need(8); return buf.getLong(); }
+        double getDouble() throws IOException { need(8); return buf.getDouble(); }
+    }
+
+    /**
+     * @return a instância do cache, ou null se ele não existe, está
+     *         desatualizado ou não pôde ser lido (o chamador faz o parse do texto).
+     */
+    static SCQBFInstance read(Path instance) {
+        Path bin = sidecar(instance);
+        if (!Files.isRegularFile(bin)) return null;
+        try (FileChannel ch = FileChannel.open(bin, StandardOpenOption.READ)) {
+            if (ch.size() < HEADER_BYTES) return null;
+            MappedReader in = new MappedReader(ch);
+            if (in.getInt() != MAGIC || in.getInt() != VERSION) return null;
+            if (in.getLong() != Files.size(instance)
+                    || in.getLong() != Files.getLastModifiedTime(instance).toMillis()) return null;
+            int n = in.getInt();
+            int kind = in.getInt();
+            long nnz = in.getLong();
+
+            int[] sz = new int[n];
+            long total = 0;
+            for (int i = 0; i < n; i++) total += (sz[i] = in.getInt());
+            long matrixBytes = (kind == 0) ? 8L * ((long) n * (n + 1) / 2) : 8L * n + 16L * nnz;
+            if (in.remaining() != 4L * total + matrixBytes)
+                throw new IOException("tamanho inconsistente");
+
+            List<int[]> sets = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                int[] s = new int[sz[i]];
+                for (int t = 0; t < s.length; t++) {
+                    int e = in.getInt();
+                    if (e < 0 || e >= n) throw new IOException("elemento fora de [0, n) no conjunto " + i + ": " + e);
+                    s[t] = e;
+                }
+                sets.add(s);
+            }
+
+            CoefficientMatrix.Builder ab = CoefficientMatrix.builder(n);
+            if (kind == 0) {
+                for (int i = 0; i < n; i++)
+                    for (int j = i; j < n; j++) ab.set(i, j, in.getDouble());
+            } else {
+                for (int i = 0; i < n; i++) ab.set(i, i, in.getDouble());
+                ab.skipZeros((long) n * (n - 1) / 2 - nnz);
+                for (long k = 0; k < nnz; k++) {
+                    int i = in.getInt(), j = in.getInt();
+                    if (i < 0 || i >= j || j >= n) throw new IOException("célula fora do triângulo: (" + i + ", " + j + ")");
+                    ab.set(i, j, in.getDouble());
+                }
+            }
+            return new SCQBFInstance(n, sets, ab.build());
+        } catch (IOException | RuntimeException e) {
+            System.err.println("[SCQBF] cache binário ignorado (" + bin + "): " + e.getMessage());
+            return null;
+        }
+    }
+
+    /* ---------- Escrita ---------- */
+
+    private static final class Out {
+        final FileChannel ch;
+        final ByteBuffer buf = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+
+        Out(FileChannel ch) { this.ch = ch; }
+
+        void room(int bytes) throws IOException {
+            if (buf.remaining() < bytes) flush();
+        }
+        void flush() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining()) ch.write(buf);
+            buf.clear();
+        }
+        void putInt(int v) throws IOException { room(4); buf.putInt(v); }
+        void putLong(long v) throws IOException { room(8); buf.putLong(v); }
+        void putDouble(double v) throws IOException { room(8); buf.putDouble(v); }
+    }
+
+    /**
+     * Grava o cache de p ao lado de instance (via arquivo temporário e move).
+     * Falhas só geram aviso: o cache é opcional.
+     */
+    static void write(Path instance, SCQBFInstance p) {
+        Path bin = sidecar(instance);
+        Path tmp = null;
+        try {
+            long srcSize = Files.size(instance);
+            long srcTime = Files.getLastModifiedTime(instance).toMillis();
+            tmp = Files.createTempFile(bin.toAbsolutePath().getParent(), bin.getFileName().toString(), ".tmp");
+            int n = p.n;
+            SparseSymmetricMatrix sparse = (p.A instanceof SparseSymmetricMatrix) ? (SparseSymmetricMatrix) p.A : null;
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                Out out = new Out(ch);
+                out.putInt(MAGIC);
+                out.putInt(VERSION);
+                out.putLong(srcSize);
+                out.putLong(srcTime);
+                out.putInt(n);
+                out.putInt(sparse != null ? 1 : 0);
+                out.putLong(sparse != null ? sparse.nonZeros() : 0L);
+                for (int[] s : p.sets) out.putInt(s.length);
+                for (int[] s : p.sets) for (int e : s) out.putInt(e);
+                if (sparse == null) {
+                    for (int i = 0; i < n; i++)
+                        for (int j = i; j < n; j++) out.putDouble(p.A.get(i, j));
+                } else {
+                    for (int i = 0; i < n; i++) out.putDouble(sparse.diag(i));
+                    int[] cols = new int[n];
+                    double[] vals = new double[n];
+                    for (int i = 0; i < n; i++) {
+                        int len = sparse.upperRow(i, cols, vals);
+                        for (int k = 0; k < len; k++) {
+                            out.putInt(i);
+                            out.putInt(cols[k]);
+                            out.putDouble(vals[k]);
+                        }
+                    }
+                }
+                out.flush();
+            }
+            Files.move(tmp, bin, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("[SCQBF] não foi possível gravar o cache binário (" + bin + "): " + e.getMessage());
+            if (tmp != null) {
+                try { Files.deleteIfExists(tmp); } catch (IOException ignored) { }
+            }
+        }
+    }
+}
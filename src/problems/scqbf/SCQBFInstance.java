@@ -0,0 +1,139 @@
+package problems.scqbf;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import problems.CoefficientMatrix;
+import problems.InstanceTokenizer;
+
+/**
+ * Dados de uma instância SCQBF: n, os conjuntos S_i e a matriz A. Imutável
+ * depois de lida, e portanto segura para ser compartilhada entre threads:
+ * cada avaliador ({@link SCQBF}) só guarda o seu estado incremental e aponta
+ * para a mesma instância, então uma instância lida uma vez serve a todos os
+ * solvers e configs.
+ *
+ * Formato do arquivo (mesmo da Atividade 1):
+ * n
+ * |S_0| |S_1| ... |S_{n-1}|
+ * linha com elementos de S_0 (1-based, pode ser vazia se |S_0|=0)
+ * ...
+ * linha com elementos de S_{n-1}
+ * A[0,0..n-1]
+ * A[1,1..n-1]
+ * ...
+ * A[n-1,n-1]
+ */
+public final class SCQBFInstance {
+
+    public final int n;                  // número de variáveis / conjuntos
+    public final List<int[]> sets;       // S_i (0-based, sem repetições); não modificar os vetores
+    public final CoefficientMatrix A;    // coeficientes (triangular superior no arquivo; ver CoefficientMatrix)
+
+    /**
+     * Se true, {@link #load(String)} usa o cache binário ao lado da instância
+     * ({@link SCQBFBinaryCache}): lê o .bin quando ele está em dia com o texto e
+     * o escreve após o primeiro parse. Ativável com -Dscqbf.binCache=true.
+     */
+    public static boolean binaryCache = Boolean.getBoolean("scqbf.binCache");
+
+    SCQBFInstance(int n, List<int[]> sets, CoefficientMatrix A) {
+        this.n = n;
+        this.sets = Collections.unmodifiableList(sets);
+        this.A = A;
+    }
+
+    /** Lê a instância do arquivo (ou do cache binário, ver {@link #binaryCache}). */
+    public static SCQBFInstance load(String filename) throws IOException {
+        return load(Paths.get(filename));
+    }
+
+    public static SCQBFInstance load(Path file) throws IOException {
+        if (!binaryCache) return parse(file);
+        SCQBFInstance p = SCQBFBinaryCache.read(file);
+        if (p == null) {
+            p = parse(file);
+            SCQBFBinaryCache.write(file, p);
+        }
+        return p;
+    }
+
+    /** Memória aproximada ocupada pela instância (matriz + conjuntos), em bytes. */
+    public long memoryBytes() {
+        long b = A.memoryBytes() + 16L * n;
+        for (int[] s : sets) b += 4L * s.length;
+        return b;
+    }
+
+    /**
+     * Lê o formato texto com o {@link InstanceTokenizer} (bytes direto do canal,
+     * sem linhas nem Strings), conferindo a mesma estrutura de linhas de antes:
+     * tamanhos numa linha, cada S_i não vazio na sua, uma linha por A[i, i..n-1].
+     */
+    static SCQBFInstance parse(Path file) throws IOException {
+        try (InstanceTokenizer tok = new InstanceTokenizer(file)) {
+            // n
+            int n = tok.nextInt("n");
+            if (n < 0) throw new IOException("n negativo: " + n);
+
+            // tamanhos dos conjuntos
+            int[] sz = new int[n];
+            for (int i = 0; i < n; i++) {
+                if (tok.atLineStart() != (i == 0))
+                    throw new IOException("Linha de tamanhos dos conjuntos != n (linha " + tok.line() + ")");
+                sz[i] = tok.nextInt("tamanhos dos conjuntos");
+                if (sz[i] < 0) {
+                    throw new IOException("|S_" + i + "| negativo: " + sz[i]);
+                }
+            }
+
+            // S_i
+            List<int[]> sets = new ArrayList<>(n);
+            int[] seen = new int[n];   // seen[k] == i+1 se k já apareceu em S_i
+            for (int i = 0; i < n; i++) {
+                if (sz[i] == 0) {
+                    sets.add(new int[0]);
+                    continue;
+                }
+                int[] list = new int[sz[i]];
+                int len = 0;
+                for (int t = 0; t < sz[i]; t++) {
+                    if (tok.atLineStart() != (t == 0))
+                        throw new IOException("S_" + i + ": esperado " + sz[i] + " elementos, mas veio " + t
+                                + " (linha " + tok.line() + ")");
+                    int v = tok.nextInt("conjuntos");   // 1-based no arquivo
+                    int v0 = v - 1;                     // 0-based interno
+                    if (v0 < 0 || v0 >= n) {
+                        throw new IOException("Elemento fora do domínio em S_" + i + ": " + v + " (válido: 1.."+ n +")");
+                    }
+                    if (seen[v0] != i + 1) {   // repetições contariam cobertura em dobro
+                        seen[v0] = i + 1;
+                        list[len++] = v0;
+                    }
+                }
+                if (!tok.atLineStart())
+                    throw new IOException("S_" + i + ": mais de " + sz[i] + " elementos (linha " + tok.line() + ")");
+                sets.add(len == list.length ? list : Arrays.copyOf(list, len));
+            }
+
+            // Matriz A (triangular superior no arquivo); o builder escolhe o formato
+            // (esparso abaixo de CoefficientMatrix.SPARSE_MAX_DENSITY, denso acima)
+            CoefficientMatrix.Builder ab = CoefficientMatrix.builder(n);
+            for (int i = 0; i < n; i++) {
+                for (int j = i; j < n; j++) {
+                    if (tok.atLineStart() != (j == i))
+                        throw new IOException("A[" + i + "]: esperado " + (n - i) + " valores, veio " + (j - i)
+                                + " (linha " + tok.line() + ")");
+                    ab.set(i, j, tok.nextDouble("A"));
+                }
+            }
+            if (!tok.atLineStart())
+                throw new IOException("A[" + (n - 1) + "]: mais de 1 valor (linha " + tok.line() + ")");
+            return new SCQBFInstance(n, sets, ab.build());
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package problems.scqbf;
+
+import java.util.Arrays;
+
+import problems.SparseSymmetricMatrix;
+
+/**
+ * Listas de vizinhos por conjunto para a vizinhança de troca granular: para
+ * cada i, os k índices j de maior |symA(i,j)| (a interação entra direto no
+ * delta da troca) e os k conjuntos que mais compartilham elementos com S_i
+ * (só um S_in que cobre os elementos críticos de out viabiliza a troca de
+ * out por in). As listas são fechadas por simetria (j vizinho de i implica i
+ * vizinho de j), então percorrer os vizinhos de cada out da solução encontra
+ * todo par (in, out) promissor por qualquer um dos lados.
+ *
+ * Construção: O(n²) para os |symA| (uma varredura por linha com um heap de
+ * tamanho k; na matriz esparsa, só os não nulos de cada linha) mais
+ * O(Σ_e grau(e)²) para as sobreposições, via índice invertido elemento →
+ * conjuntos. Só leitura depois de pronta: pode ser compartilhada pelos
+ * solvers (e workers) da mesma instância.
+ */
+public final class SCQBFNeighbours {
+
+    public final int k;           // vizinhos por critério, antes do fechamento simétrico
+    private final int[][] lists;  // lists[i] = vizinhos de i (sem repetição, sem o próprio i)
+
+    public SCQBFNeighbours(SCQBFInstance data, int k) {
+        if (k < 1) throw new IllegalArgumentException("k deve ser >= 1: " + k);
+        this.k = k;
+        int n = data.n;
+
+        // 1) listas dirigidas: top-k por |symA| e top-k por elementos em comum
+        int[][] directed = new int[n][];
+        int[] heapIdx = new int[k];
+        double[] heapKey = new double[k];
+        int[] merged = new int[2 * k];
+        int[] stamp = new int[n];
+        Arrays.fill(stamp, -1);
+
+        // índice invertido: conjuntos que cobrem cada elemento
+        int[] deg = new int[n];
+        for (int[] s : data.sets) for (int e : s) deg[e]++;
+        int[][] coveredBy = new int[n][];
+        for (int e = 0; e < n; e++) coveredBy[e] = new int[deg[e]];
+        Arrays.fill(deg, 0);
+        for (int i = 0; i < n; i++) for (int e : data.sets.get(i)) coveredBy[e][deg[e]++] = i;
+        int[] overlap = new int[n];
+        int[] touched = new int[n];
+        // esparsa: percorre só os não nulos da linha (sym(i,j) é uma busca binária)
+        SparseSymmetricMatrix sparse = (data.A instanceof SparseSymmetricMatrix) ? (SparseSymmetricMatrix) data.A : null;
+        int[] rowCols = (sparse != null) ? new int[n] : null;
+        double[] rowVals = (sparse != null) ? new double[n] : null;
+
+        for (int i = 0; i < n; i++) {
+            int cnt = 0;
+            int h = 0;
+            if (sparse != null) {
+                int len = sparse.row(i, rowCols, rowVals);
+                for (int p = 0; p < len; p++) {
+                    double a = Math.abs(rowVals[p]);
+                    if (a == 0.0) continue;
+                    h = heapOffer(heapIdx, heapKey, h, rowCols[p], a);
+                }
+            } else {
+                for (int j = 0; j < n; j++) {
+                    if (j == i) continue;
+                    double a = Math.abs(data.A.sym(i, j));
+                    if (a == 0.0) continue;
+                    h = heapOffer(heapIdx, heapKey, h, j, a);
+                }
+            }
+            for (int p = 0; p < h; p++) {
+                stamp[heapIdx[p]] = i;
+                merged[cnt++] = heapIdx[p];
+            }
+
+            int t = 0;
+            for (int e : data.sets.get(i)) {
+                for (int j : coveredBy[e]) {
+                    if (j == i) continue;
+                    if (overlap[j]++ == 0) touched[t++] = j;
+                }
+            }
+            h = 0;
+            for (int p = 0; p < t; p++) {
+                int j = touched[p];
+                h = heapOffer(heapIdx, heapKey, h, j, overlap[j]);
+                overlap[j] = 0;
+            }
+            for (int p = 0; p < h; p++) {
+                int j = heapIdx[p];
+                if (stamp[j] != i) {
+                    stamp[j] = i;
+                    merged[cnt++] = j;
+                }
+            }
+            directed[i] = Arrays.copyOf(merged, cnt);
+        }
+
+        // 2) fechamento simétrico: N(i) = D(i) ∪ {j : i ∈ D(j)}
+        int[] size = new int[n];
+        for (int i = 0; i < n; i++) {
+            size[i] += directed[i].length;
+            for (int j : directed[i]) size[j]++;
+        }
+        lists = new int[n][];
+        int[] fill = new int[n];
+        for (int i = 0; i < n; i++) lists[i] = new int[size[i]];
+        Arrays.fill(stamp, -1);
+        for (int i = 0; i < n; i++) {
+            for (int j : directed[i]) {
+                lists[i][fill[i]++] = j;
+                lists[j][fill[j]++] = i;
+            }
+        }
+        // remove repetições (j em D(i) e i em D(j))
+        for (int i = 0; i < n; i++) {
+            int[] l = lists[i];
+            int c = 0;
+            for (int p = 0; p < fill[i]; p++) {
+                if (stamp[l[p]] != i) {
+                    stamp[l[p]] = i;
+                    l[c++] = l[p];
+                }
+            }
+            if (c != l.length) lists[i] = Arrays.copyOf(l, c);
+        }
+    }
+
+    /**
+     * Oferece (j, key) a um heap de mínimo com os h maiores vistos até aqui
+     * (capacidade idx.length): entra se há espaço ou se key supera o menor.
+     *
+     * @return o novo tamanho do heap.
+     */
+    private static int heapOffer(int[] idx, double[] key, int h, int j, double v) {
+        if (h < idx.length) {
+            int p = h++;
+            while (p > 0) {
+                int parent = (p - 1) >>> 1;
+                if (key[parent] <= v) break;
+                idx[p] = idx[parent]; key[p] = key[parent];
+                p = parent;
+            }
+            idx[p] = j; key[p] = v;
+            return h;
+        }
+        if (v <= key[0]) return h;
+        int p = 0;
+        while (true) {
+            int c = 2 * p + 1;
+            if (c >= h) break;
+            if (c + 1 < h && key[c + 1] < key[c]) c++;
+            if (key[c] >= v) break;
+            idx[p] = idx[c]; key[p] = key[c];
+            p = c;
+        }
+        idx[p] = j; key[p] = v;
+        return h;
+    }
+
+    /** Vizinhos de i (não modificar o vetor). */
+    public int[] of(int i) {
+        return lists[i];
+    }
+
+    /** Tamanho médio das listas (depois do fechamento simétrico). */
+    public double meanSize() {
+        long s = 0;
+        for (int[] l : lists) s += l.length;
+        return lists.length == 0 ? 0.0 : (double) s / lists.length;
+    }
+}
@@ -10,5 +10,13 @@ public class SCQBF_Inverse extends SCQBF {
     public SCQBF_Inverse(String filename) throws IOException {
         super(filename);
     }
+    /** Nova sessão sobre uma instância já carregada (ver {@link SCQBF#SCQBF(SCQBFInstance)}). */
+    public SCQBF_Inverse(SCQBFInstance data) {
+        super(data);
+    }
+    /** Nova sessão sobre os dados já carregados de other (ver {@link SCQBF#SCQBF(SCQBF)}). */
+    public SCQBF_Inverse(SCQBF other) {
+        super(other);
+    }
     // Os métodos de SCQBF já retornam custo = –f e –Δf, nada a sobrescrever.
 }
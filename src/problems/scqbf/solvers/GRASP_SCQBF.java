@@ -1,15 +1,41 @@
 package problems.scqbf.solvers;
 
 import java.io.IOException;
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import metaheuristics.grasp.AbstractGRASP;
+import metaheuristics.grasp.ElitePool;
+import metaheuristics.grasp.GRASPMetrics;
+import metaheuristics.grasp.LocalOptimumCache;
+import problems.SparseSymmetricMatrix;
+import problems.scqbf.SCQBF;
+import problems.scqbf.SCQBFInstance;
+import problems.scqbf.SCQBFNeighbours;
 import problems.scqbf.SCQBF_Inverse;
+import solutions.BitVector;
+import solutions.IndexedIntSet;
+import solutions.IntSolution;
 import solutions.Solution;
 
 public class GRASP_SCQBF extends AbstractGRASP<Integer> {
 
-    public enum LocalSearchType { FIRST_IMPROVING, BEST_IMPROVING }
+    /**
+     * FIRST_IMPROVING e BEST_IMPROVING como de costume; ADAPTIVE escolhe a cada
+     * passo entre o best-improving e as vizinhanças first-improving (e a ordem
+     * delas) pela melhora por nanossegundo medida até ali (ver adaptiveStep).
+     */
+    public enum LocalSearchType { FIRST_IMPROVING, BEST_IMPROVING, ADAPTIVE }
     public enum ConstructionMode { STANDARD, SAMPLED, REACTIVE }
+    /**
+     * Path relinking após a busca local: FORWARD parte do ótimo local rumo a
+     * uma solução de elite, BACKWARD da elite rumo ao ótimo local, MIXED anda
+     * alternadamente pelas duas pontas até se encontrarem.
+     */
+    public enum PathRelinking { NONE, FORWARD, BACKWARD, MIXED }
+
+    // avaliador tipado: a busca local usa a sessão incremental (deltas + commits)
+    private final SCQBF scqbf;
 
     private final ConstructionMode mode;
     private final LocalSearchType lsType;
@@ -24,6 +50,48 @@ public class GRASP_SCQBF extends AbstractGRASP<Integer> {
     private double bestSoFar;
 
     private long timeLimitNanos = Long.MAX_VALUE;
+    private long runStart;   // início do solve() corrente (limite de tempo do path relinking)
+
+    // path relinking (desligado por padrão; ver setPathRelinking)
+    private PathRelinking prMode = PathRelinking.NONE;
+    private ElitePool elite;
+    private SCQBF prOther;         // segunda sessão, para a ponta da elite no modo MIXED
+    private IntSolution prA, prB;  // as duas pontas do caminho
+    private IntSolution prBest;    // melhor solução intermediária do caminho
+    private IndexedIntSet prDiff;  // diferença simétrica entre as pontas
+    private BitVector prBits;      // seleção de sol (para o XOR com a guia)
+    private long prLocalSearchNanos; // busca local do path relinking na iteração corrente (métricas)
+
+    // cache construção -> ótimo local (desligado por padrão; ver setLocalOptimumCache)
+    private LocalOptimumCache lsCache;
+
+    // troca granular (desligada por padrão; ver setGranularSwap)
+    private SCQBFNeighbours swapNb;  // listas de vizinhos; null = troca completa
+    private int fullScanPeriod;      // a cada quantas buscas locais uma usa a troca completa (<= 0: nunca)
+    private long lsCount;            // buscas locais feitas (para o período)
+    private boolean granular;        // a busca local corrente usa a troca granular
+
+    // buffer reutilizado para embaralhar os elementos da solução na busca local
+    private final int[] inside;
+
+    // tabelas de delta do passo best-improving (custos = –Δf), reaproveitadas
+    private final double[] addCost;   // por posição na CL
+    private final double[] dropCost;  // por posição em inside (só os removíveis)
+    // minSym[i] = min_{j != i} symA(i,j): limitante inferior do termo de correção da troca;
+    // calculado uma vez por matriz, no primeiro passo best-improving (FIRST nunca o lê)
+    private double[] minSym;
+    // matriz esparsa: a linha de in é espalhada em symRow (O(grau)) em vez de
+    // uma busca binária por par (in,out); null nos formatos densos
+    private final double[] symRow;
+
+    // modo ADAPTIVE: braços = vizinhanças first-improving e o passo best-improving
+    private static final int ARM_ADD = 0, ARM_DROP = 1, ARM_SWAP = 2, ARM_BEST = 3;
+    private static final double ADAPTIVE_DECAY = 0.1;     // peso da medida nova na média móvel
+    private static final double ADAPTIVE_EXPLORE = 0.05;  // fração de passos com braço sorteado
+    private final double[] armRate = { Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                                       Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY };
+    private final long[] armUses = new long[4];
+    private final int[] adaptiveOrder = new int[3];
 
     // NEW: métricas para o Runner
     public int iterationsRun = 0;     // iterações efetivamente executadas
@@ -35,6 +103,11 @@ public class GRASP_SCQBF extends AbstractGRASP<Integer> {
     }
     public long now() { return System.nanoTime(); }
 
+    /** Estourou o limite local (desde t0) ou o limite global de uma execução paralela? */
+    private boolean timeUp(long t0) {
+        return (now() - t0) > timeLimitNanos || sharedTimeExpired();
+    }
+
     public GRASP_SCQBF(
             Double alpha,
             Integer iterations,
@@ -45,7 +118,47 @@ public class GRASP_SCQBF extends AbstractGRASP<Integer> {
             double[] reactiveAlphas,
             int reactiveBlock
     ) throws IOException {
-        super(new SCQBF_Inverse(filename), alpha, iterations);
+        this(alpha, iterations, SCQBFInstance.load(filename), mode, lsType, sampleP, reactiveAlphas, reactiveBlock);
+    }
+
+    /**
+     * Usa uma instância já carregada, que é só lida: vários solvers (configs
+     * diferentes, workers do ParallelGRASP) podem receber a mesma, cada um
+     * com a sua sessão do avaliador.
+     */
+    public GRASP_SCQBF(
+            Double alpha,
+            Integer iterations,
+            SCQBFInstance data,
+            ConstructionMode mode,
+            LocalSearchType lsType,
+            int sampleP,
+            double[] reactiveAlphas,
+            int reactiveBlock
+    ) {
+        this(alpha, iterations, new SCQBF_Inverse(data), mode, lsType, sampleP, reactiveAlphas, reactiveBlock);
+    }
+
+    /**
+     * Usa um avaliador já criado. O solver passa a ser dono do estado de
+     * objFunction (a sessão), então cada solver precisa do seu.
+     */
+    public GRASP_SCQBF(
+            Double alpha,
+            Integer iterations,
+            SCQBF objFunction,
+            ConstructionMode mode,
+            LocalSearchType lsType,
+            int sampleP,
+            double[] reactiveAlphas,
+            int reactiveBlock
+    ) {
+        super(objFunction, alpha, iterations);
+        this.scqbf = (SCQBF) ObjFunction;
+        this.inside = new int[scqbf.n];
+        this.addCost = new double[scqbf.n];
+        this.dropCost = new double[scqbf.n];
+        this.symRow = (scqbf.A instanceof SparseSymmetricMatrix) ? new double[scqbf.n] : null;
         this.mode = mode;
         this.lsType = lsType;
         this.sampleP = sampleP;
@@ -64,16 +177,69 @@ public class GRASP_SCQBF extends AbstractGRASP<Integer> {
         }
     }
 
+    /**
+     * Liga o cache de ótimos locais: uma construção já vista (mesmo hash
+     * Zobrist, ver {@link SCQBF#hash()}) pula a busca local e recebe o ótimo
+     * local guardado. capacity <= 0 desliga.
+     */
+    public void setLocalOptimumCache(int capacity) {
+        lsCache = (capacity > 0) ? new LocalOptimumCache(capacity) : null;
+    }
+
+    /** O cache de ótimos locais, ou null se desligado. */
+    public LocalOptimumCache getLocalOptimumCache() {
+        return lsCache;
+    }
+
+    /**
+     * Liga a vizinhança de troca granular: os pares (in, out) avaliados ficam
+     * restritos a in nas listas de vizinhos de out (top-k por |symA| e por
+     * elementos em comum, ver {@link SCQBFNeighbours}), O(|S|·k) por passo em
+     * vez de O(|CL|·|S|). Uma em cada fullScanPeriod buscas locais usa a troca
+     * completa, para não ficar presa em ótimos só da vizinhança restrita
+     * (fullScanPeriod <= 0: nunca). nb == null desliga. As listas são só
+     * lidas: podem ser compartilhadas entre solvers da mesma instância.
+     */
+    public void setGranularSwap(SCQBFNeighbours nb, int fullScanPeriod) {
+        this.swapNb = nb;
+        this.fullScanPeriod = fullScanPeriod;
+        this.lsCount = 0;
+    }
+
+    /** Como {@link #setGranularSwap(SCQBFNeighbours, int)}, montando as listas com k vizinhos. */
+    public void setGranularSwap(int k, int fullScanPeriod) {
+        setGranularSwap(new SCQBFNeighbours(scqbf.data, k), fullScanPeriod);
+    }
+
+    /**
+     * Liga o path relinking: a cada iteração, o ótimo local é religado a uma
+     * solução sorteada de um pool de elite (poolSize soluções distintas; ver
+     * {@link ElitePool}), e o pool é atualizado com o resultado.
+     */
+    public void setPathRelinking(PathRelinking mode, int poolSize) {
+        this.prMode = mode;
+        if (mode == PathRelinking.NONE) {
+            elite = null;
+            return;
+        }
+        int n = scqbf.n;
+        // distância mínima entre membros: sem ela o pool vira cópias do mesmo ótimo
+        elite = new ElitePool(poolSize, n, Math.max(4, n / 100));
+        prA = new IntSolution(n);
+        prB = new IntSolution(n);
+        prBest = new IntSolution(n);
+        prDiff = new IndexedIntSet(n);
+        prBits = new BitVector(n);
+        prOther = (mode == PathRelinking.MIXED) ? new SCQBF(scqbf) : null;
+    }
+
     /* ----------------------- AbstractGRASP overrides ----------------------- */
 
     @Override
-    public ArrayList<Integer> makeCL() {
-        // CL = todos fora da solução (o AbstractGRASP chama antes de construir)
-        ArrayList<Integer> _CL = new ArrayList<>();
-        for (int i = 0; i < ObjFunction.getDomainSize(); i++) {
-            _CL.add(i);
-        }
-        return _CL;
+    public List<Integer> makeCL() {
+        // CL = todos fora da solução (o AbstractGRASP chama antes de construir);
+        // IndexedIntSet: inserção, remoção, pertinência e sorteio em O(1)
+        return IndexedIntSet.full(scqbf.n);
     }
 
     @Override
@@ -84,142 +250,492 @@ public class GRASP_SCQBF extends AbstractGRASP<Integer> {
 
     @Override
     public void updateCL() {
-        // Para STANDARD e REACTIVE: CL = todos os ainda não selecionados (o AbstractGRASP remove os adicionados).
-        // Para SAMPLED: reconstruímos a CL como uma AMOSTRA de candidatos fora da solução.
+        // Para STANDARD e REACTIVE: CL = todos os ainda não selecionados. A CL é
+        // mantida a cada movimento (o AbstractGRASP remove o inserido, a busca
+        // local devolve os removidos), então aqui só se reconstrói se dessincronizar.
+        // Para SAMPLED: a CL é uma AMOSTRA de candidatos fora da solução.
+        IntSolution s = (IntSolution) sol;
+        IndexedIntSet cl = (IndexedIntSet) CL;
         if (mode == ConstructionMode.SAMPLED) {
-            // Reconstrói CL com amostra aleatória de elementos fora da solução:
-            HashSet<Integer> inSol = new HashSet<>(sol);
-            ArrayList<Integer> all = new ArrayList<>();
-            for (int i = 0; i < ObjFunction.getDomainSize(); i++) {
-                if (!inSol.contains(i)) all.add(i);
-            }
-            Collections.shuffle(all, rng);
-            CL.clear();
-            int p = Math.min(sampleP, all.size());
-            for (int k = 0; k < p; k++) CL.add(all.get(k));
-        } else {
-            // STANDARD/REACTIVE: mantém todos fora de sol como candidatos
-            HashSet<Integer> inSol = new HashSet<>(sol);
-            CL.removeIf(inSol::contains);
-            // garante que CL contém todos fora de sol
-            for (int i = 0; i < ObjFunction.getDomainSize(); i++) {
-                if (!inSol.contains(i) && !CL.contains(i)) CL.add(i);
+            cl.clear();
+            int outside = scqbf.n - s.size();
+            int p = Math.min(sampleP, outside);
+            if (2 * p <= outside) {
+                // rejeição: cada sorteio acerta um elemento fora de sol e fora da amostra
+                // com probabilidade >= 1/2 · (n - |S|)/n
+                while (cl.size() < p) {
+                    int i = rng.nextInt(scqbf.n);
+                    if (!s.containsInt(i)) cl.addInt(i);
+                }
+            } else {
+                // poucos de fora: varre e embaralha parcialmente (Fisher–Yates nas p primeiras posições)
+                for (int i = 0; i < scqbf.n; i++) if (!s.containsInt(i)) cl.addInt(i);
+                for (int k = 0; k < p; k++) cl.swapPositions(k, k + rng.nextInt(cl.size() - k));
+                while (cl.size() > p) cl.removeInt(cl.getInt(cl.size() - 1));
             }
+        } else if (cl.size() + s.size() != scqbf.n) {
+            // STANDARD/REACTIVE: CL = complemento de sol
+            cl.clear();
+            for (int i = 0; i < scqbf.n; i++) if (!s.containsInt(i)) cl.addInt(i);
         }
     }
 
+    @Override
+    protected void insertIntoSolution(Integer elem, double deltaCost) {
+        // commit na sessão: atualiza w em O(n) e mantém os deltas dos demais candidatos em O(1)
+        scqbf.commitAdd(elem);
+    }
+
     @Override
     public Solution<Integer> createEmptySol() {
-        Solution<Integer> s = new Solution<>();
+        IntSolution s = new IntSolution(scqbf.n);
         s.cost = 0.0; // custo = –f, solução vazia => f=0 => custo=0
         return s;
     }
 
     @Override
     public Solution<Integer> localSearch() {
-        // Implementa dois modos: FIRST_IMPROVING e BEST_IMPROVING
+        // Três modos: FIRST_IMPROVING, BEST_IMPROVING e ADAPTIVE (escolhe entre os dois por passo)
         final double EPS = 1e-12;
         boolean improved;
         long tStart = now();
+        IntSolution sol = (IntSolution) this.sol;
+        IndexedIntSet CL = (IndexedIntSet) this.CL;
+
+        // vincula o estado do avaliador a sol; daqui em diante só commits
+        scqbf.bind(sol);
+        if (metrics != null) metrics.evalFull++;
+        granular = swapNb != null && (fullScanPeriod <= 0 || ++lsCount % fullScanPeriod != 0);
 
         do {
-            if ((now() - tStart) > timeLimitNanos) break;
+            if (timeUp(tStart)) break;
 
-            improved = false;
             updateCL();
 
             if (lsType == LocalSearchType.FIRST_IMPROVING) {
-                // 1) tentativas de inserção
-                Collections.shuffle(CL, rng);
-                for (Integer candIn : CL) {
-                    double dc = ObjFunction.evaluateInsertionCost(candIn, sol);
-                    if (dc < -EPS) {
-                        sol.add(candIn);
-                        CL.remove(candIn);
-                        ObjFunction.evaluate(sol);
+                // add, depois drop, depois troca (só se add/drop não melhoram)
+                improved = firstImprovingAdd(sol, CL, EPS)
+                        || firstImprovingDrop(sol, CL, EPS)
+                        || firstImprovingSwap(sol, CL, EPS);
+            } else if (lsType == LocalSearchType.BEST_IMPROVING) {
+                improved = bestImprovingStep(sol, CL, EPS);
+            } else {
+                improved = adaptiveStep(sol, CL, EPS);
+            }
+        } while (improved && !timeUp(tStart));
+
+        return sol;
+    }
+
+    /** First-improving na vizinhança de inserção (CL embaralhada). */
+    private boolean firstImprovingAdd(IntSolution sol, IndexedIntSet CL, double eps) {
+        boolean improved = false;
+        shuffle(CL);
+        int nc = CL.size(), c = 0;
+        for (; c < nc; c++) {
+            int candIn = CL.getInt(c);
+            double dc = scqbf.deltaAdd(candIn);
+            if (dc < -eps) {
+                scqbf.commitAdd(candIn);
+                CL.removeInt(candIn);
+                improved = true;
+                break;
+            }
+        }
+        if (metrics != null) {
+            metrics.evaluated(GRASPMetrics.ADD, improved ? c + 1 : nc);
+            if (improved) metrics.accepted(GRASPMetrics.ADD);
+        }
+        return improved;
+    }
+
+    /** First-improving na vizinhança de remoção (só remoções que mantêm a cobertura). */
+    private boolean firstImprovingDrop(IntSolution sol, IndexedIntSet CL, double eps) {
+        boolean improved = false;
+        int m = sol.copyElements(inside);
+        shuffle(inside, m);
+        int k = 0;
+        for (; k < m; k++) {
+            int candOut = inside[k];
+            double dc = scqbf.deltaDrop(candOut);
+            if (dc < -eps) {
+                scqbf.commitDrop(candOut);
+                CL.addInt(candOut);
+                improved = true;
+                break;
+            }
+        }
+        if (metrics != null) {
+            metrics.evaluated(GRASPMetrics.DROP, improved ? k + 1 : m);
+            if (improved) metrics.accepted(GRASPMetrics.DROP);
+        }
+        return improved;
+    }
+
+    /**
+     * First-improving na vizinhança de troca (pares in ∈ CL, out ∈ sol). Na
+     * versão granular, in percorre só os vizinhos de out, a partir de uma
+     * posição sorteada da lista.
+     */
+    private boolean firstImprovingSwap(IntSolution sol, IndexedIntSet CL, double eps) {
+        boolean improved = false;
+        int m = sol.copyElements(inside);
+        shuffle(inside, m);
+        if (granular) {
+            long pairs = 0;
+            outer:
+            for (int k = 0; k < m; k++) {
+                int candOut = inside[k];
+                int[] nb = swapNb.of(candOut);
+                int len = nb.length;
+                if (len == 0) continue;
+                int off = rng.nextInt(len);
+                for (int p = 0; p < len; p++) {
+                    int candIn = nb[(off + p) % len];
+                    if (!CL.containsInt(candIn)) continue;
+                    pairs++;
+                    double dc = scqbf.deltaSwap(candIn, candOut);
+                    if (dc < -eps) {
+                        scqbf.commitSwap(candIn, candOut);
+                        CL.removeInt(candIn);
+                        CL.addInt(candOut);
                         improved = true;
-                        break;
-                    }
-                }
-                if (!improved) {
-                    // 2) tentativas de remoção
-                    ArrayList<Integer> inside = new ArrayList<>(sol);
-                    Collections.shuffle(inside, rng);
-                    for (Integer candOut : inside) {
-                        double dc = ObjFunction.evaluateRemovalCost(candOut, sol);
-                        if (dc < -EPS) {
-                            sol.remove(candOut);
-                            CL.add(candOut);
-                            ObjFunction.evaluate(sol);
-                            improved = true;
-                            break;
-                        }
+                        break outer;
                     }
                 }
-                if (!improved) {
-                    // 3) troca (opcional): só tenta se add/drop não melhoram
-                    ArrayList<Integer> inside = new ArrayList<>(sol);
-                    Collections.shuffle(inside, rng);
-                    Collections.shuffle(CL, rng);
-                    outer:
-                    for (Integer candIn : CL) {
-                        for (Integer candOut : inside) {
-                            double dc = ObjFunction.evaluateExchangeCost(candIn, candOut, sol);
-                            if (dc < -EPS) {
-                                sol.remove(candOut);
-                                CL.add(candOut);
-                                sol.add(candIn);
-                                CL.remove(candIn);
-                                ObjFunction.evaluate(sol);
-                                improved = true;
-                                break outer;
-                            }
-                        }
-                    }
+            }
+            if (metrics != null) {
+                metrics.evaluated(GRASPMetrics.SWAP, pairs);
+                if (improved) metrics.accepted(GRASPMetrics.SWAP);
+            }
+            return improved;
+        }
+        shuffle(CL);
+        long pairs = 0;
+        outer:
+        for (int c = 0; c < CL.size(); c++) {
+            int candIn = CL.getInt(c);
+            for (int k = 0; k < m; k++) {
+                int candOut = inside[k];
+                double dc = scqbf.deltaSwap(candIn, candOut);
+                if (dc < -eps) {
+                    scqbf.commitSwap(candIn, candOut);
+                    CL.removeInt(candIn);
+                    CL.addInt(candOut);
+                    improved = true;
+                    pairs += k + 1;
+                    break outer;
                 }
-            } else {
-                // BEST_IMPROVING
-                double bestDc = -EPS;
-                Integer bestIn = null, bestOut = null;
-                // inserções
-                for (Integer candIn : CL) {
-                    double dc = ObjFunction.evaluateInsertionCost(candIn, sol);
-                    if (dc < bestDc) {
-                        bestDc = dc; bestIn = candIn; bestOut = null;
+            }
+            pairs += m;
+        }
+        if (metrics != null) {
+            metrics.evaluated(GRASPMetrics.SWAP, pairs);
+            if (improved) metrics.accepted(GRASPMetrics.SWAP);
+        }
+        return improved;
+    }
+
+    /* ----------------------- Busca local adaptativa ----------------------- */
+
+    /**
+     * Um passo do modo ADAPTIVE. Cada "braço" (o passo best-improving e as
+     * três vizinhanças first-improving) tem uma taxa de melhora por
+     * nanossegundo, média móvel exponencial de ganho/tempo medida a cada uso
+     * (inclusive os que não melhoram, que custam tempo e rendem 0). O passo
+     * é best-improving se a taxa dele supera a da melhor vizinhança first;
+     * senão as vizinhanças first são tentadas em ordem decrescente de taxa,
+     * até uma melhorar. Com probabilidade {@link #ADAPTIVE_EXPLORE} o passo
+     * sai de um braço sorteado, para as taxas não congelarem; braços nunca
+     * usados têm taxa +∞ (cada um é medido ao menos uma vez). As taxas
+     * persistem entre iterações e entre solve() do mesmo solver: o custo de
+     * cada vizinhança depende da instância, não da solução de partida.
+     *
+     * Retornar false continua significando ótimo local completo: um passo
+     * best-improving sem melhora, ou as três vizinhanças first sem melhora.
+     */
+    private boolean adaptiveStep(IntSolution sol, IndexedIntSet CL, double eps) {
+        // ordem das vizinhanças first por taxa (inserção ordenada de 3 elementos)
+        int[] order = adaptiveOrder;
+        order[0] = ARM_ADD; order[1] = ARM_DROP; order[2] = ARM_SWAP;
+        for (int a = 1; a < 3; a++) {
+            for (int b = a; b > 0 && armRate[order[b]] > armRate[order[b - 1]]; b--) {
+                int t = order[b]; order[b] = order[b - 1]; order[b - 1] = t;
+            }
+        }
+        boolean best = armRate[ARM_BEST] > armRate[order[0]];
+        if (rng.nextDouble() < ADAPTIVE_EXPLORE) {
+            int arm = rng.nextInt(4);
+            best = (arm == ARM_BEST);
+            if (!best) {
+                // o braço sorteado vai para a frente, os demais mantêm a ordem
+                int p = 0;
+                while (order[p] != arm) p++;
+                for (; p > 0; p--) order[p] = order[p - 1];
+                order[0] = arm;
+            }
+        }
+        if (best) return runArm(ARM_BEST, sol, CL, eps);
+        for (int a = 0; a < 3; a++) {
+            if (runArm(order[a], sol, CL, eps)) return true;
+        }
+        return false;
+    }
+
+    /** Roda um braço, mede ganho e tempo e atualiza a taxa dele. */
+    private boolean runArm(int arm, IntSolution sol, IndexedIntSet CL, double eps) {
+        double before = sol.cost;
+        long t0 = System.nanoTime();
+        boolean improved;
+        switch (arm) {
+            case ARM_ADD:  improved = firstImprovingAdd(sol, CL, eps); break;
+            case ARM_DROP: improved = firstImprovingDrop(sol, CL, eps); break;
+            case ARM_SWAP: improved = firstImprovingSwap(sol, CL, eps); break;
+            default:       improved = bestImprovingStep(sol, CL, eps); break;
+        }
+        long dt = Math.max(1L, System.nanoTime() - t0);
+        double rate = (before - sol.cost) / dt;
+        armRate[arm] = (armUses[arm]++ == 0) ? rate : armRate[arm] + ADAPTIVE_DECAY * (rate - armRate[arm]);
+        return improved;
+    }
+
+    /**
+     * Um passo best-improving sobre tabelas de delta. Os custos de inserção e de
+     * remoção vêm do w mantido pela sessão (atualizado em O(n) por movimento
+     * aplicado); a viabilidade vem do índice de elementos críticos do SCQBF
+     * (O(1) por remoção, O(|S_in|) por troca candidata), e a troca sai de
+     * addCost[in] + dropCost[out] + symA(in,out). Ins cujo
+     * limitante addCost + min(dropCost) + minSym não bate o melhor são pulados.
+     * Custo: O(n + |S|·|CL|) no pior caso, sem reconstruções.
+     *
+     * @return true se aplicou um movimento de melhora.
+     */
+    private boolean bestImprovingStep(IntSolution sol, IndexedIntSet CL, double eps) {
+        if (minSym == null) minSym = scqbf.A.minSyms();
+        double bestDc = -eps;
+        int bestIn = -1, bestOut = -1;
+
+        // inserções
+        int nc = CL.size();
+        double minAdd = Double.POSITIVE_INFINITY;
+        for (int c = 0; c < nc; c++) {
+            int candIn = CL.getInt(c);
+            double dc = scqbf.deltaAdd(candIn);
+            addCost[c] = dc;
+            if (dc < minAdd) minAdd = dc;
+            if (dc < bestDc) {
+                bestDc = dc; bestIn = candIn; bestOut = -1;
+            }
+        }
+        // remoções: todos os selecionados entram na tabela (a troca pode
+        // viabilizar um out crítico); remoção pura só sem elementos críticos
+        int m = 0;
+        double minDrop = Double.POSITIVE_INFINITY;
+        for (int k = 0; k < sol.size(); k++) {
+            int candOut = sol.getInt(k);
+            double dc = scqbf.deltaDropUnchecked(candOut);
+            inside[m] = candOut;
+            dropCost[m++] = dc;
+            if (dc < minDrop) minDrop = dc;
+            if (dc < bestDc && scqbf.criticalCount(candOut) == 0) {
+                bestDc = dc; bestIn = -1; bestOut = candOut;
+            }
+        }
+        // trocas (viabilidade só é checada para quem melhora o melhor atual)
+        long pairs = 0;
+        if (granular) {
+            // só in vizinho de out; addCost é achado pela posição de in na CL
+            for (int k = 0; k < m; k++) {
+                int candOut = inside[k];
+                double d = dropCost[k];
+                if (minAdd + d + minSym[candOut] >= bestDc) continue;
+                int[] nb = swapNb.of(candOut);
+                pairs += nb.length;
+                for (int candIn : nb) {
+                    int c = CL.positionOf(candIn);
+                    if (c < 0) continue;
+                    double dc = addCost[c] + d + scqbf.A.sym(candIn, candOut);
+                    if (dc < bestDc && scqbf.swapFeasible(candIn, candOut)) {
+                        bestDc = dc; bestIn = candIn; bestOut = candOut;
                     }
                 }
-                // remoções
-                for (Integer candOut : sol) {
-                    double dc = ObjFunction.evaluateRemovalCost(candOut, sol);
-                    if (dc < bestDc) {
-                        bestDc = dc; bestIn = null; bestOut = candOut;
+            }
+        }
+        // troca completa: todo in da CL (ins cujo limitante não bate o melhor são pulados)
+        int scanIn = granular ? 0 : nc;
+        for (int c = 0; c < scanIn && m > 0; c++) {
+            int candIn = CL.getInt(c);
+            double a = addCost[c];
+            if (a + minDrop + minSym[candIn] >= bestDc) continue;
+            pairs += m;
+            if (symRow != null) {
+                scqbf.A.addRowTo(candIn, 1.0, symRow);
+                for (int k = 0; k < m; k++) {
+                    double dc = a + dropCost[k] + symRow[inside[k]];
+                    if (dc < bestDc && scqbf.swapFeasible(candIn, inside[k])) {
+                        bestDc = dc; bestIn = candIn; bestOut = inside[k];
                     }
                 }
-                // trocas
-                for (Integer candIn : CL) {
-                    for (Integer candOut : sol) {
-                        double dc = ObjFunction.evaluateExchangeCost(candIn, candOut, sol);
-                        if (dc < bestDc) {
-                            bestDc = dc; bestIn = candIn; bestOut = candOut;
-                        }
-                    }
+                scqbf.A.addRowTo(candIn, -1.0, symRow); // volta a zero (uma parcela por posição)
+                continue;
+            }
+            for (int k = 0; k < m; k++) {
+                double dc = a + dropCost[k] + scqbf.A.sym(candIn, inside[k]);
+                if (dc < bestDc && scqbf.swapFeasible(candIn, inside[k])) {
+                    bestDc = dc; bestIn = candIn; bestOut = inside[k];
                 }
-                if (bestIn != null || bestOut != null) {
-                    if (bestOut != null) {
-                        sol.remove(bestOut);
-                        CL.add(bestOut);
-                    }
-                    if (bestIn != null) {
-                        sol.add(bestIn);
-                        CL.remove(bestIn);
-                    }
-                    ObjFunction.evaluate(sol);
-                    improved = true;
+            }
+        }
+
+        if (metrics != null) {
+            metrics.evaluated(GRASPMetrics.ADD, nc);
+            metrics.evaluated(GRASPMetrics.DROP, m);
+            metrics.evaluated(GRASPMetrics.SWAP, pairs);
+            if (bestIn >= 0 || bestOut >= 0)
+                metrics.accepted(bestIn < 0 ? GRASPMetrics.DROP : bestOut < 0 ? GRASPMetrics.ADD : GRASPMetrics.SWAP);
+        }
+
+        if (bestIn < 0 && bestOut < 0) return false;
+        if (bestIn >= 0 && bestOut >= 0) {
+            scqbf.commitSwap(bestIn, bestOut);
+        } else if (bestOut >= 0) {
+            scqbf.commitDrop(bestOut);
+        } else {
+            scqbf.commitAdd(bestIn);
+        }
+        if (bestIn >= 0) CL.removeInt(bestIn);
+        if (bestOut >= 0) CL.addInt(bestOut);
+        return true;
+    }
+
+    /**
+     * Iteração com o cache de ótimos locais e/ou o path relinking. Com o
+     * cache, a sessão está vinculada à solução construída, então o hash dela
+     * sai de graça: num acerto, sol recebe o ótimo guardado e a sessão é
+     * revinculada (como a busca local faria no início); numa falha, a busca
+     * local roda e o resultado entra no cache. Depois vem a intensificação
+     * (path relinking e pool de elite); a busca local que o path relinking
+     * roda conta no tempo de busca local e nos passos da iteração.
+     */
+    @Override
+    protected void runIteration() {
+        if (lsCache == null && elite == null) {
+            super.runIteration();
+            return;
+        }
+        long t0 = System.nanoTime();
+        constructiveHeuristic();
+        long t1 = System.nanoTime();
+        long steps = (metrics != null) ? metrics.acceptedTotal() : 0;
+        if (lsCache == null) {
+            localSearch();
+        } else {
+            long key = scqbf.hash();
+            IntSolution known = lsCache.get(key);
+            if (known != null) {
+                IntSolution s = (IntSolution) sol;
+                s.copyFrom(known);
+                scqbf.bind(s);
+                if (metrics != null) metrics.evalFull++;
+            } else {
+                localSearch();
+                // busca cortada pelo limite de tempo não chegou a um ótimo local
+                if (!timeUp(runStart)) lsCache.put(key, (IntSolution) sol);
+            }
+            if (metrics != null) {
+                if (known != null) metrics.lsCacheHits++;
+                else metrics.lsCacheMisses++;
+            }
+        }
+        long lsNanos = System.nanoTime() - t1;
+        prLocalSearchNanos = 0;
+        intensify();
+        if (metrics != null)
+            metrics.iteration(t1 - t0, lsNanos + prLocalSearchNanos, metrics.acceptedTotal() - steps);
+    }
+
+    /* ----------------------- Path relinking ----------------------- */
+
+    /**
+     * Religa o ótimo local sol a um membro sorteado do pool de elite. O passo
+     * é sempre o melhor movimento (pelos deltas da sessão, O(1) cada) dentre
+     * os elementos da diferença simétrica: inserir o que só a outra ponta tem,
+     * ou remover o que ela não tem, se a cobertura permitir. Existe sempre um
+     * passo viável: enquanto faltam inserções, elas são viáveis; quando só
+     * sobram remoções, a ponta contém a outra, que já cobre tudo. A melhor
+     * solução intermediária (sem as pontas) passa pela busca local e
+     * substitui sol se for melhor. Respeita o limite de tempo do solve().
+     */
+    private void pathRelinking() {
+        IntSolution cur = (IntSolution) sol;
+        ElitePool.Member guide = elite.random(rng);
+        if (guide == null) return;
+
+        // diferença simétrica = bits de cur XOR bits da guia, palavra a palavra
+        prBits.assign(cur);
+        prDiff.clear();
+        for (int w = 0; w < prBits.wordCount(); w++) {
+            for (long d = prBits.word(w) ^ guide.bits.word(w); d != 0; d &= d - 1)
+                prDiff.addInt((w << 6) + Long.numberOfTrailingZeros(d));
+        }
+        if (prDiff.size() < 2) return; // nada entre as pontas
+
+        prA.copyFrom(cur);
+        prB.copyFrom(guide.sol);
+        // a (sessão principal) anda sobre from; no MIXED, prOther anda sobre to
+        IntSolution from = (prMode == PathRelinking.BACKWARD) ? prB : prA;
+        IntSolution to = (from == prA) ? prB : prA;
+        scqbf.bind(from);
+        if (prOther != null) prOther.bind(to);
+        prBest.cost = Double.POSITIVE_INFINITY;
+
+        boolean turnA = true;
+        boolean timedOut = false;
+        while (prDiff.size() > 1) {
+            if (timeUp(runStart)) {
+                timedOut = true;
+                break;
+            }
+            SCQBF walker = turnA ? scqbf : prOther;
+            IntSolution ws = turnA ? from : to;
+            int bestE = -1;
+            double bestDc = Double.POSITIVE_INFINITY;
+            for (int c = 0; c < prDiff.size(); c++) {
+                int e = prDiff.getInt(c);
+                double dc = ws.containsInt(e) ? walker.deltaDrop(e) : walker.deltaAdd(e);
+                if (dc < bestDc) {
+                    bestDc = dc; bestE = e;
                 }
             }
-        } while (improved && (now() - tStart) <= timeLimitNanos);
+            if (bestE < 0 || bestDc == Double.POSITIVE_INFINITY) break; // não deveria acontecer
+            if (ws.containsInt(bestE)) walker.commitDrop(bestE);
+            else walker.commitAdd(bestE);
+            prDiff.removeInt(bestE);
+            if (ws.cost < prBest.cost) prBest.copyFrom(ws);
+            if (prOther != null) turnA = !turnA;
+        }
 
-        return sol;
+        if (timedOut || !(prBest.cost < cur.cost)) {
+            // a sessão ficou numa ponta do caminho: volta para sol
+            scqbf.bind(cur);
+            if (metrics != null) metrics.evalFull++;
+            return;
+        }
+        cur.copyFrom(prBest);
+        // CL volta a ser o complemento de sol (SAMPLED reamostra no updateCL)
+        IndexedIntSet cl = (IndexedIntSet) CL;
+        cl.clear();
+        for (int i = 0; i < scqbf.n; i++) if (!cur.containsInt(i)) cl.addInt(i);
+        long t0 = System.nanoTime();
+        localSearch(); // vincula a sessão a sol no início
+        prLocalSearchNanos += System.nanoTime() - t0;
+    }
+
+    /** Path relinking (se ligado) e atualização do pool de elite com sol. */
+    private void intensify() {
+        if (elite == null) return;
+        if (!timeUp(runStart)) pathRelinking();
+        elite.offer((IntSolution) sol);
     }
 
     /* ----------------------- Lógica Reactive ----------------------- */
@@ -244,9 +760,16 @@ public class GRASP_SCQBF extends AbstractGRASP<Integer> {
         for (int i = 0; i < alphas.length; i++) probs[i] = score[i] / sum;
     }
 
+    /** Copia sol para bestSol reaproveitando o buffer (sem alocação). */
+    private void saveBest() {
+        ((IntSolution) bestSol).copyFrom((IntSolution) sol);
+    }
+
     @Override
     public Solution<Integer> solve() {
         long t0 = System.nanoTime();
+        runStart = t0;
+        if (elite != null) elite.clear();
         bestSol = createEmptySol();
         bestCost = Double.POSITIVE_INFINITY;
         iterationsRun = 0;        // NEW
@@ -255,40 +778,40 @@ public class GRASP_SCQBF extends AbstractGRASP<Integer> {
 
         if (mode != ConstructionMode.REACTIVE) {
             for (int it = 0; it < iterations; it++) {
-                if ((System.nanoTime() - t0) > timeLimitNanos) break;
-                constructiveHeuristic();
-                localSearch();
+                if (timeUp(t0)) break;
+                runIteration();
                 iterationsRun++; // NEW
                 if (bestSol.cost > sol.cost) {
-                    bestSol = new Solution<>(sol);
+                    saveBest();
                     bestCost = bestSol.cost;
                     // NEW: marca iteração e tempo do melhor
                     bestIter = iterationsRun;
                     bestTimeSec = (System.nanoTime() - t0) / 1e9;
-                    if (verbose) System.out.println("(Iter " + it + ") Best = " + bestSol);
+                    publish(bestIter);
+                    reportBest(it, null);
                 }
             }
             return bestSol;
         }
 
         int it = 0, blockCount = 0;
-        while ((System.nanoTime() - t0) <= timeLimitNanos && it < iterations) {
+        while (!timeUp(t0) && it < iterations) {
             int idx = sampleAlphaIndex();
             this.alpha = alphas[idx];
 
-            constructiveHeuristic();
-            localSearch();
+            runIteration();
             iterationsRun++; // NEW
 
             if (bestSol.cost > sol.cost) {
-                bestSol = new Solution<>(sol);
+                saveBest();
                 bestCost = bestSol.cost;
                 double bestF = -bestCost;
                 if (bestF > bestSoFar) bestSoFar = bestF;
                 // NEW:
                 bestIter = iterationsRun;
                 bestTimeSec = (System.nanoTime() - t0) / 1e9;
-                if (verbose) System.out.println("(Iter " + it + ") [alpha=" + alpha + "] Best = " + bestSol);
+                publish(bestIter);
+                if (verbose) reportBest(it, "[alpha=" + alpha + "]");
             }
 
             double thisF = -sol.cost;
@@ -0,0 +1,164 @@
+package solutions;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size set of indices {0, ..., n-1} packed in 64-bit words: one bit
+ * per decision variable instead of one byte (boolean[]) or eight (double[]).
+ * Clearing, copying, comparing and hashing cost n/64 word operations, the
+ * Hamming distance between two vectors is a popcount of their XOR, and the
+ * selected indices can be visited without looking at the others, with
+ * {@link #nextSetBit(int)} or word by word with
+ * {@link Long#numberOfTrailingZeros(long)}:
+ *
+ * <pre>
+ * for (int w = 0; w &lt; bits.wordCount(); w++)
+ * 	for (long word = bits.word(w); word != 0; word &amp;= word - 1)
+ * 		visit((w &lt;&lt; 6) + Long.numberOfTrailingZeros(word));
+ * </pre>
+ */
+public final class BitVector {
+
+	private final long[] words;
+
+	private final int domainSize;
+
+	/**
+	 * Creates an empty vector over the domain {0, ..., domainSize-1}.
+	 *
+	 * @param domainSize
+	 *            the number of decision variables.
+	 */
+	public BitVector(int domainSize) {
+		this.domainSize = domainSize;
+		this.words = new long[(domainSize + 63) >>> 6];
+	}
+
+	public BitVector(BitVector v) {
+		this.domainSize = v.domainSize;
+		this.words = v.words.clone();
+	}
+
+	/**
+	 * @return the size of the domain.
+	 */
+	public int domainSize() {
+		return domainSize;
+	}
+
+	/**
+	 * @return the number of 64-bit words.
+	 */
+	public int wordCount() {
+		return words.length;
+	}
+
+	/**
+	 * @return the w-th word (bit b of word w is index 64w + b).
+	 */
+	public long word(int w) {
+		return words[w];
+	}
+
+	public boolean get(int i) {
+		return (words[i >>> 6] & (1L << i)) != 0;
+	}
+
+	public void set(int i) {
+		words[i >>> 6] |= 1L << i;
+	}
+
+	public void clear(int i) {
+		words[i >>> 6] &= ~(1L << i);
+	}
+
+	/**
+	 * Clears every bit.
+	 */
+	public void clear() {
+		Arrays.fill(words, 0L);
+	}
+
+	/**
+	 * Overwrites this vector with another one over the same domain.
+	 */
+	public void copyFrom(BitVector v) {
+		if (v.domainSize != domainSize)
+			throw new IllegalArgumentException("domain size mismatch: " + v.domainSize + " vs " + domainSize);
+		System.arraycopy(v.words, 0, words, 0, words.length);
+	}
+
+	/**
+	 * Sets exactly the elements of sol.
+	 */
+	public void assign(IntSolution sol) {
+		clear();
+		for (int k = 0; k < sol.size(); k++)
+			set(sol.getInt(k));
+	}
+
+	/**
+	 * @return the number of set bits.
+	 */
+	public int cardinality() {
+		int c = 0;
+		for (long w : words)
+			c += Long.bitCount(w);
+		return c;
+	}
+
+	/**
+	 * @return the smallest set index >= from, or -1 if there is none.
+	 */
+	public int nextSetBit(int from) {
+		if (from >= domainSize)
+			return -1;
+		int w = from >>> 6;
+		long word = words[w] & (-1L << from);
+		while (word == 0) {
+			if (++w == words.length)
+				return -1;
+			word = words[w];
+		}
+		return (w << 6) + Long.numberOfTrailingZeros(word);
+	}
+
+	/**
+	 * @return the number of indices set in exactly one of a and b (Hamming
+	 *         distance); both must have the same domain.
+	 */
+	public static int distance(BitVector a, BitVector b) {
+		int d = 0;
+		for (int w = 0; w < a.words.length; w++)
+			d += Long.bitCount(a.words[w] ^ b.words[w]);
+		return d;
+	}
+
+	/**
+	 * @return a 64-bit hash of the set indices, for duplicate detection (equal
+	 *         vectors have equal hashes; the converse holds with overwhelming
+	 *         probability).
+	 */
+	public long hash64() {
+		long h = domainSize;
+		for (long w : words) {
+			h = (h ^ w) * 0x9E3779B97F4A7C15L;
+			h ^= h >>> 32;
+		}
+		h ^= h >>> 29;
+		h *= 0xBF58476D1CE4E5B9L;
+		return h ^ (h >>> 32);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof BitVector && ((BitVector) o).domainSize == domainSize
+				&& Arrays.equals(((BitVector) o).words, words);
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(hash64());
+	}
+
+}
@@ -0,0 +1,264 @@
+package solutions;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+import java.util.SplittableRandom;
+
+/**
+ * Set of integers in the domain {0, ..., n-1}, kept in a primitive array
+ * together with a position index. Insertion, removal (swap with the last
+ * element), membership and uniform sampling are O(1) and never box. Element
+ * order is therefore not preserved by removals.
+ * 
+ * The boxed {@link java.util.List} view is kept for compatibility with the
+ * generic framework (e.g. as a GRASP candidate list); hot paths should use the
+ * primitive methods ({@link #addInt}, {@link #removeInt}, {@link #containsInt},
+ * {@link #getInt}).
+ */
+public class IndexedIntSet extends AbstractList<Integer> implements RandomAccess {
+
+	/**
+	 * the elements, in positions [0, size)
+	 */
+	private final int[] elems;
+
+	/**
+	 * pos[e] is the position of element e in {@link #elems}, or -1 if absent
+	 */
+	private final int[] pos;
+
+	private int size;
+
+	/**
+	 * Creates an empty set over the domain {0, ..., domainSize-1}.
+	 * 
+	 * @param domainSize
+	 *            the size of the domain.
+	 */
+	public IndexedIntSet(int domainSize) {
+		elems = new int[domainSize];
+		pos = new int[domainSize];
+		Arrays.fill(pos, -1);
+	}
+
+	public IndexedIntSet(IndexedIntSet set) {
+		elems = set.elems.clone();
+		pos = set.pos.clone();
+		size = set.size;
+	}
+
+	/**
+	 * Creates the set holding the whole domain {0, ..., domainSize-1}.
+	 */
+	public static IndexedIntSet full(int domainSize) {
+		IndexedIntSet s = new IndexedIntSet(domainSize);
+		for (int e = 0; e < domainSize; e++) {
+			s.elems[e] = e;
+			s.pos[e] = e;
+		}
+		s.size = domainSize;
+		return s;
+	}
+
+	/**
+	 * Overwrites this set with the contents of another one over the same
+	 * domain, reusing this object's buffers. Costs O(size before + size
+	 * after): only the positions of the old and the new elements are touched,
+	 * never the whole domain.
+	 */
+	public void copyFrom(IndexedIntSet set) {
+		if (set.elems.length != elems.length)
+			throw new IllegalArgumentException("domain size mismatch: " + set.elems.length + " vs " + elems.length);
+		for (int k = 0; k < size; k++)
+			pos[elems[k]] = -1;
+		System.arraycopy(set.elems, 0, elems, 0, set.size);
+		size = set.size;
+		for (int k = 0; k < size; k++)
+			pos[elems[k]] = k;
+		modCount++;
+	}
+
+	/**
+	 * @return the size of the domain.
+	 */
+	public int domainSize() {
+		return elems.length;
+	}
+
+	public boolean containsInt(int e) {
+		return pos[e] >= 0;
+	}
+
+	/**
+	 * @return the position of element e in [0, size), or -1 if absent.
+	 */
+	public int positionOf(int e) {
+		return pos[e];
+	}
+
+	/**
+	 * @param k
+	 *            a position in [0, size).
+	 * @return the element stored at position k.
+	 */
+	public int getInt(int k) {
+		return elems[k];
+	}
+
+	/**
+	 * Inserts element e, if absent.
+	 * 
+	 * @return true if the set changed.
+	 */
+	public boolean addInt(int e) {
+		if (pos[e] >= 0)
+			return false;
+		pos[e] = size;
+		elems[size++] = e;
+		modCount++;
+		return true;
+	}
+
+	/**
+	 * Removes element e, if present, moving the last element into its place.
+	 * 
+	 * @return true if the set changed.
+	 */
+	public boolean removeInt(int e) {
+		int k = pos[e];
+		if (k < 0)
+			return false;
+		removeAt(k);
+		return true;
+	}
+
+	private int removeAt(int k) {
+		int e = elems[k];
+		int last = elems[--size];
+		elems[k] = last;
+		pos[last] = k;
+		pos[e] = -1;
+		modCount++;
+		return e;
+	}
+
+	/**
+	 * @return an element drawn uniformly at random (the set must not be
+	 *         empty).
+	 */
+	public int sample(SplittableRandom rng) {
+		return elems[rng.nextInt(size)];
+	}
+
+	/**
+	 * Exchanges the elements at positions i and j. Together with
+	 * {@link #sample}, this lets callers draw samples without replacement in
+	 * place (partial Fisher-Yates over the first positions).
+	 */
+	public void swapPositions(int i, int j) {
+		int a = elems[i], b = elems[j];
+		elems[i] = b;
+		pos[b] = i;
+		elems[j] = a;
+		pos[a] = j;
+	}
+
+	/**
+	 * Copies the elements into dst (positions [0, size)).
+	 * 
+	 * @return the number of elements copied.
+	 */
+	public int copyElements(int[] dst) {
+		System.arraycopy(elems, 0, dst, 0, size);
+		return size;
+	}
+
+	/* ---------- boxed List view ---------- */
+
+	@Override
+	public Integer get(int index) {
+		if (index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		return elems[index];
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public Integer set(int index, Integer element) {
+		int old = get(index);
+		if (old != element) {
+			if (pos[element] >= 0)
+				throw new IllegalArgumentException("element " + element + " already in set");
+			pos[old] = -1;
+			elems[index] = element;
+			pos[element] = index;
+		}
+		return old;
+	}
+
+	@Override
+	public boolean add(Integer element) {
+		return addInt(element);
+	}
+
+	/**
+	 * Inserts element at the given position; the element previously there (if
+	 * any) is moved to the end. Duplicates are ignored.
+	 */
+	@Override
+	public void add(int index, Integer element) {
+		if (index > size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		if (!addInt(element) || index == size - 1)
+			return;
+		swapPositions(index, size - 1);
+	}
+
+	@Override
+	public Integer remove(int index) {
+		if (index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		return removeAt(index);
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		return inDomain(o) && removeInt((Integer) o);
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return inDomain(o) && containsInt((Integer) o);
+	}
+
+	@Override
+	public int indexOf(Object o) {
+		return inDomain(o) ? pos[(Integer) o] : -1;
+	}
+
+	@Override
+	public int lastIndexOf(Object o) {
+		return indexOf(o);
+	}
+
+	private boolean inDomain(Object o) {
+		if (!(o instanceof Integer))
+			return false;
+		int e = (Integer) o;
+		return e >= 0 && e < pos.length;
+	}
+
+	@Override
+	public void clear() {
+		for (int k = 0; k < size; k++)
+			pos[elems[k]] = -1;
+		size = 0;
+		modCount++;
+	}
+
+}
@@ -0,0 +1,170 @@
+package solutions;
+
+/**
+ * Solution for binary problems whose elements are the indices 0..n-1 of the
+ * decision variables. The elements are kept in an {@link IndexedIntSet}, so
+ * insertion, removal and membership tests are O(1) and never box, and a
+ * snapshot costs two array copies. Element order is not preserved by
+ * removals.
+ * 
+ * The boxed {@link java.util.List} view inherited from {@link Solution} is
+ * kept for compatibility with the generic framework; hot paths should use the
+ * primitive methods ({@link #addInt}, {@link #removeInt}, {@link #containsInt},
+ * {@link #getInt}).
+ */
+public class IntSolution extends Solution<Integer> {
+
+	private final IndexedIntSet elems;
+
+	/**
+	 * Creates an empty solution over the domain {0, ..., domainSize-1}.
+	 * 
+	 * @param domainSize
+	 *            the number of decision variables.
+	 */
+	public IntSolution(int domainSize) {
+		super();
+		elems = new IndexedIntSet(domainSize);
+	}
+
+	public IntSolution(IntSolution sol) {
+		super();
+		elems = new IndexedIntSet(sol.elems);
+		cost = sol.cost;
+	}
+
+	@Override
+	public IntSolution copy() {
+		return new IntSolution(this);
+	}
+
+	/**
+	 * Overwrites this solution with the contents of another one over the same
+	 * domain, reusing this object's buffers.
+	 * 
+	 * @param sol
+	 *            the solution being copied.
+	 */
+	public void copyFrom(IntSolution sol) {
+		elems.copyFrom(sol.elems);
+		cost = sol.cost;
+		modCount++;
+	}
+
+	/**
+	 * @return the number of decision variables of the domain.
+	 */
+	public int domainSize() {
+		return elems.domainSize();
+	}
+
+	public boolean containsInt(int e) {
+		return elems.containsInt(e);
+	}
+
+	/**
+	 * @param k
+	 *            a position in [0, size).
+	 * @return the element stored at position k.
+	 */
+	public int getInt(int k) {
+		return elems.getInt(k);
+	}
+
+	/**
+	 * Inserts element e, if absent.
+	 * 
+	 * @return true if the solution changed.
+	 */
+	public boolean addInt(int e) {
+		if (!elems.addInt(e))
+			return false;
+		modCount++;
+		return true;
+	}
+
+	/**
+	 * Removes element e, if present, moving the last element into its place.
+	 * 
+	 * @return true if the solution changed.
+	 */
+	public boolean removeInt(int e) {
+		if (!elems.removeInt(e))
+			return false;
+		modCount++;
+		return true;
+	}
+
+	/**
+	 * Copies the elements into dst (positions [0, size)).
+	 * 
+	 * @return the number of elements copied.
+	 */
+	public int copyElements(int[] dst) {
+		return elems.copyElements(dst);
+	}
+
+	/* ---------- boxed List view ---------- */
+
+	@Override
+	public Integer get(int index) {
+		return elems.get(index);
+	}
+
+	@Override
+	public int size() {
+		return elems.size();
+	}
+
+	@Override
+	public Integer set(int index, Integer element) {
+		return elems.set(index, element);
+	}
+
+	@Override
+	public boolean add(Integer element) {
+		return addInt(element);
+	}
+
+	@Override
+	public void add(int index, Integer element) {
+		modCount++;
+		elems.add(index, element);
+	}
+
+	@Override
+	public Integer remove(int index) {
+		modCount++;
+		return elems.remove(index);
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		if (!elems.remove(o))
+			return false;
+		modCount++;
+		return true;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return elems.contains(o);
+	}
+
+	@Override
+	public int indexOf(Object o) {
+		return elems.indexOf(o);
+	}
+
+	@Override
+	public int lastIndexOf(Object o) {
+		return elems.indexOf(o);
+	}
+
+	@Override
+	public void clear() {
+		modCount++;
+		elems.clear();
+	}
+
+}
@@ -1,21 +1,70 @@
 package solutions;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.RandomAccess;
 
-@SuppressWarnings("serial")
-public class Solution<E> extends ArrayList<E> {
+public class Solution<E> extends AbstractList<E> implements RandomAccess {
 	
-	public Double cost = Double.POSITIVE_INFINITY;
+	public double cost = Double.POSITIVE_INFINITY;
+
+	private final ArrayList<E> elements;
 	
 	public Solution() {
 		super();
+		elements = new ArrayList<E>();
 	}
 	
 	public Solution(Solution<E> sol) {
-		super(sol);
+		super();
+		elements = new ArrayList<E>(sol);
 		cost = sol.cost;
 	}
 
+	/**
+	 * Returns an independent copy of this solution (same elements and cost).
+	 * Subclasses with specialized storage override it so that snapshots keep
+	 * their representation.
+	 *
+	 * @return a copy of this solution.
+	 */
+	public Solution<E> copy() {
+		return new Solution<E>(this);
+	}
+
+	@Override
+	public E get(int index) {
+		return elements.get(index);
+	}
+
+	@Override
+	public int size() {
+		return elements.size();
+	}
+
+	@Override
+	public E set(int index, E element) {
+		return elements.set(index, element);
+	}
+
+	@Override
+	public void add(int index, E element) {
+		modCount++;
+		elements.add(index, element);
+	}
+
+	@Override
+	public E remove(int index) {
+		modCount++;
+		return elements.remove(index);
+	}
+
+	@Override
+	public void clear() {
+		modCount++;
+		elements.clear();
+	}
+
 	@Override
 	public String toString() {
 		return "Solution: cost=[" + cost + "], size=[" + this.size() + "], elements=" + super.toString();